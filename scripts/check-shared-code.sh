@@ -0,0 +1,74 @@
+#!/bin/bash
+
+# Checks that the classes copied into every Java service have not drifted apart.
+#
+# Each service builds on its own (its Dockerfile copies only its own directory), so shared
+# packages are kept as copies rather than a common module. The copies must stay identical
+# apart from the service's own identity: its package, its "Service X:" log prefix and its
+# "service-x" names. Change them in every service in the same commit.
+
+set -e
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BASE=src/main/java/com/example/otel
+
+# Paths relative to each service's package; a file is compared across every service that has it
+SHARED=(
+  compute
+  event
+  memory
+  slow
+  config/HttpClientProperties.java
+  kafka/MessageDeduplicator.java
+  kafka/WindowedBloomFilter.java
+)
+
+normalize() {
+  local service=$1 file=$2
+  local upper
+  upper=$(echo "$service" | tr '[:lower:]' '[:upper:]')
+  sed -e "s/\bservice${service}\b/serviceX/g" \
+      -e "s/\"Service ${upper}:/\"Service X:/g" \
+      -e "s/service-${service}\b/service-X/g" "$file"
+}
+
+FILES=()
+for path in "${SHARED[@]}"; do
+  for dir in "$ROOT"/services/java/service-*/; do
+    service=$(basename "$dir")
+    service=${service#service-}
+    package="$dir$BASE/service$service"
+    if [ -d "$package/$path" ]; then
+      while IFS= read -r file; do
+        FILES+=("${file#$package/}")
+      done < <(find "$package/$path" -name '*.java')
+    elif [ -f "$package/$path" ]; then
+      FILES+=("$path")
+    fi
+  done
+done
+
+FAILED=0
+for file in $(printf "%s\n" "${FILES[@]}" | sort -u); do
+  reference=""
+  for dir in "$ROOT"/services/java/service-*/; do
+    service=$(basename "$dir")
+    service=${service#service-}
+    copy="$dir$BASE/service$service/$file"
+    [ -f "$copy" ] || continue
+    if [ -z "$reference" ]; then
+      reference=$copy
+      reference_service=$service
+    elif ! diff -q <(normalize "$reference_service" "$reference") <(normalize "$service" "$copy") >/dev/null; then
+      echo "DIFFERS: $file (service-$reference_service vs service-$service)"
+      diff <(normalize "$reference_service" "$reference") <(normalize "$service" "$copy") || true
+      FAILED=1
+    fi
+  done
+done
+
+if [ "$FAILED" -ne 0 ]; then
+  echo "Shared classes differ between services; apply the change to every copy."
+  exit 1
+fi
+echo "Shared classes are identical across services ($(printf "%s\n" "${FILES[@]}" | sort -u | wc -l) files)."
@@ -2,6 +2,7 @@
 -- This script creates tables and populates sample data
 
 -- Drop tables if they exist (for fresh start)
+DROP TABLE IF EXISTS service_events CASCADE;
 DROP TABLE IF EXISTS orders CASCADE;
 DROP TABLE IF EXISTS users CASCADE;
 
@@ -27,6 +28,19 @@ CREATE TABLE orders (
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Create Service Events table (written by Service C's Kafka consumer)
+CREATE TABLE service_events (
+    id BIGSERIAL PRIMARY KEY,
+    -- One row per event: redelivered copies are skipped by the writer's ON CONFLICT DO NOTHING
+    message_id UUID NOT NULL UNIQUE,
+    source VARCHAR(255),
+    message TEXT,
+    event_time TIMESTAMP NOT NULL,
+    kafka_partition INTEGER NOT NULL,
+    kafka_offset BIGINT NOT NULL,
+    stored_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Create index for faster lookups
 CREATE INDEX idx_orders_user_id ON orders(user_id);
 CREATE INDEX idx_orders_status ON orders(status);
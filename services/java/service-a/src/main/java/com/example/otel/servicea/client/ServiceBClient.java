@@ -0,0 +1,66 @@
+package com.example.otel.servicea.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponents;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Client for calls from Service A to Service B.
+ *
+ * <p>Both modes return a {@link Mono} so controllers are written once. In {@code blocking} mode
+ * the {@link RestTemplate} call runs inline on the subscribing thread, which for a Spring MVC
+ * handler is the Tomcat worker, exactly as before. In {@code reactive} mode the call runs on the
+ * Reactor Netty event loop and the worker thread is handed back to Tomcat while Service B works.
+ */
+@Slf4j
+@Component
+public class ServiceBClient {
+
+    public enum Mode { BLOCKING, REACTIVE }
+
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+        new ParameterizedTypeReference<>() {};
+
+    private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final String serviceBUrl;
+    private final Mode mode;
+
+    public ServiceBClient(RestTemplate restTemplate,
+                          WebClient webClient,
+                          @Value("${service.b.url:http://service-b:8081}") String serviceBUrl,
+                          @Value("${service.b.client.mode:blocking}") Mode mode) {
+        this.restTemplate = restTemplate;
+        this.webClient = webClient;
+        this.serviceBUrl = serviceBUrl;
+        this.mode = mode;
+        log.info("Service A: Calling Service B in {} mode", mode);
+    }
+
+    /** Calls {@code path} on Service B; components that are not encoded yet are encoded here. */
+    public Mono<Map<String, Object>> get(UriComponents path) {
+        // A URI rather than a string, so neither client expands or encodes it again
+        URI url = URI.create(serviceBUrl + path.encode().toUriString());
+        log.info("Service A: Calling Service B at {}", url);
+
+        if (mode == Mode.REACTIVE) {
+            return webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(RESPONSE_TYPE)
+                .defaultIfEmpty(Collections.emptyMap());
+        }
+        return Mono.fromCallable(() -> restTemplate.exchange(url, HttpMethod.GET, null, RESPONSE_TYPE).getBody())
+            .defaultIfEmpty(Collections.emptyMap());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.otel.servicea.compute;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Deadline and cancellation flag of one job admitted by {@link ComputePool#submit}. The engines
+ * call {@link #checkpoint()} between units of work, such as a sieve segment or a batch of hash
+ * steps, so a job stops soon after its deadline passes or its client goes away.
+ */
+public final class ComputeJob {
+
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    ComputeJob(long timeoutNanos) {
+        this.deadlineNanos = System.nanoTime() + timeoutNanos;
+    }
+
+    /** @throws CancellationException if the job was cancelled or its deadline has passed */
+    public void checkpoint() {
+        if (cancelled || System.nanoTime() - deadlineNanos > 0) {
+            throw new CancellationException("Compute job cancelled");
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+}
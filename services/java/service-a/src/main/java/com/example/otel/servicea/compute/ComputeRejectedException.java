@@ -0,0 +1,9 @@
+package com.example.otel.servicea.compute;
+
+/** Thrown by {@link ComputePool#submit} when every slot is busy and the queue is full. */
+public class ComputeRejectedException extends RuntimeException {
+
+    public ComputeRejectedException(String message) {
+        super(message);
+    }
+}
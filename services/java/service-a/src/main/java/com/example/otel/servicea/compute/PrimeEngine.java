@@ -0,0 +1,292 @@
+package com.example.otel.servicea.compute;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Counts and lists primes for the {@code /compute/primes} endpoints.
+ *
+ * <p>The {@code sieve} algorithm is a segmented Sieve of Eratosthenes over odd numbers only. The
+ * number line is cut into fixed segments of {@value #SEGMENT_NUMBERS} numbers; a segment's bitset
+ * (64 KB) stays in the CPU cache while every base prime up to its square root crosses off its
+ * multiples. Segments are counted in parallel on the {@link ComputePool}, and the count of each
+ * full segment is cached, so a later request only sieves the segments no earlier request covered.
+ *
+ * <p>The {@code trial} algorithm is the original trial division into a boxed list, kept as the
+ * baseline to compare against.
+ */
+@Component
+public class PrimeEngine {
+
+    public enum Algorithm {
+        TRIAL, SIEVE;
+
+        /** Case-insensitive lookup for request parameters. */
+        public static Optional<Algorithm> parse(String name) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.name().equalsIgnoreCase(name)) {
+                    return Optional.of(algorithm);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    public record Result(long count, int segments, int cachedSegments) {
+    }
+
+    static final int SEGMENT_NUMBERS = 1 << 20;
+    private static final int SEGMENT_WORDS = SEGMENT_NUMBERS / 2 / 64;
+    // Base primes up to sqrt(Integer.MAX_VALUE) cover every limit the endpoints accept
+    private static final int MAX_BASE_PRIME = 46341;
+
+    private final int[] basePrimes = oddPrimesUpTo(MAX_BASE_PRIME);
+    private final ComputePool pool;
+    private final boolean cacheEnabled;
+    // Primes in each full segment, plus one; 0 means not yet sieved
+    private final AtomicIntegerArray segmentCounts =
+        new AtomicIntegerArray((int) (((long) Integer.MAX_VALUE + 1) / SEGMENT_NUMBERS));
+
+    public PrimeEngine(ComputePool pool,
+                       @Value("${compute.primes.cache:true}") boolean cacheEnabled) {
+        this.pool = pool;
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public int parallelism() {
+        return pool.parallelism();
+    }
+
+    /**
+     * Number of primes {@code <= limit}; stops at {@code job}'s checkpoints once it is cancelled.
+     *
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public Result count(int limit, Algorithm algorithm, ComputeJob job) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        if (algorithm == Algorithm.TRIAL) {
+            return new Result(trialDivision(limit, job).size(), 0, 0);
+        }
+        if (limit < 2) {
+            return new Result(0, 0, 0);
+        }
+        int segments = limit / SEGMENT_NUMBERS + 1;
+        SegmentTask task = new SegmentTask(job, limit, 0, segments,
+            Math.max(1, segments / (pool.parallelism() * 4)));
+        long[] counted = segments == 1 ? task.compute() : pool.invoke(task);
+        return new Result(counted[0], segments, (int) counted[1]);
+    }
+
+    /**
+     * Writes the primes in {@code [from, to]} to {@code out}, one per line, sieving one segment at a
+     * time so memory does not depend on the size of the range. Returns the number written. Checks
+     * {@code job} before every segment and every write, so a cancelled stream stops within one.
+     */
+    public long stream(int from, int to, OutputStream out, ComputeJob job) throws IOException {
+        long[] bits = new long[SEGMENT_WORDS];
+        byte[] buffer = new byte[8192];
+        int position = 0;
+        long written = 0;
+        if (from <= 2 && to >= 2) {
+            buffer[position++] = '2';
+            buffer[position++] = '\n';
+            written++;
+        }
+        for (long lo = (long) Math.max(from, 0) / SEGMENT_NUMBERS * SEGMENT_NUMBERS; lo <= to; lo += SEGMENT_NUMBERS) {
+            job.checkpoint();
+            long hi = Math.min(lo + SEGMENT_NUMBERS - 1, to);
+            int odds = sieve(lo, hi, bits);
+            for (int word = 0; word * 64 < odds; word++) {
+                long candidates = ~bits[word];
+                if ((word + 1) * 64 > odds) {
+                    candidates &= -1L >>> (64 - (odds - word * 64));
+                }
+                while (candidates != 0) {
+                    long prime = lo + 2L * (word * 64 + Long.numberOfTrailingZeros(candidates)) + 1;
+                    candidates &= candidates - 1;
+                    if (prime < from || prime == 1) {
+                        continue;
+                    }
+                    if (position > buffer.length - 12) {
+                        job.checkpoint();
+                        out.write(buffer, 0, position);
+                        position = 0;
+                    }
+                    position = writeLine(prime, buffer, position);
+                    written++;
+                }
+            }
+        }
+        job.checkpoint();
+        out.write(buffer, 0, position);
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Original implementation: trial division by odd numbers up to the square root. The bounds are
+     * compared in {@code long} so that {@code limit = Integer.MAX_VALUE} terminates.
+     */
+    List<Integer> trialDivision(int limit, ComputeJob job) {
+        List<Integer> primes = new ArrayList<>();
+        for (long num = 2; num <= limit; num++) {
+            if ((num & 0x3FF) == 0) {
+                job.checkpoint();
+            }
+            if (isPrime((int) num)) {
+                primes.add((int) num);
+            }
+        }
+        return primes;
+    }
+
+    private static boolean isPrime(int num) {
+        if (num <= 1) return false;
+        if (num == 2) return true;
+        if (num % 2 == 0) return false;
+
+        for (long i = 3; i * i <= num; i += 2) {
+            if (num % i == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts the primes of segment {@code index} up to {@code limit}, through the cache when the
+     * segment lies entirely below the limit.
+     */
+    private int countSegment(int index, int limit, long[] bits, boolean[] cached) {
+        long lo = (long) index * SEGMENT_NUMBERS;
+        long hi = Math.min(lo + SEGMENT_NUMBERS - 1, limit);
+        boolean full = hi == lo + SEGMENT_NUMBERS - 1;
+        if (full && cacheEnabled) {
+            int known = segmentCounts.get(index);
+            if (known > 0) {
+                cached[0] = true;
+                return known - 1;
+            }
+        }
+        int odds = sieve(lo, hi, bits);
+        int composites = 0;
+        int fullWords = odds / 64;
+        for (int word = 0; word < fullWords; word++) {
+            composites += Long.bitCount(bits[word]);
+        }
+        if (odds % 64 != 0) {
+            composites += Long.bitCount(bits[fullWords] & (-1L >>> (64 - odds % 64)));
+        }
+        // In the first segment 1 is counted although it is not prime, and 2 is not counted because
+        // it is even; with limit >= 2 the two cancel out
+        int count = odds - composites;
+        if (full && cacheEnabled) {
+            segmentCounts.set(index, count + 1);
+        }
+        cached[0] = false;
+        return count;
+    }
+
+    /**
+     * Sieves the odd numbers of {@code [lo, hi]}, {@code lo} a multiple of the segment size. Bit
+     * {@code i} of {@code bits} is set if {@code lo + 2i + 1} is composite. Returns the number of
+     * odd numbers covered.
+     */
+    private int sieve(long lo, long hi, long[] bits) {
+        int odds = (int) ((hi - lo + 1) / 2);
+        Arrays.fill(bits, 0, (odds + 63) / 64, 0L);
+        for (int p : basePrimes) {
+            long square = (long) p * p;
+            if (square > hi) {
+                break;
+            }
+            long start = Math.max(square, (lo + p - 1) / p * p);
+            if ((start & 1) == 0) {
+                start += p;
+            }
+            // Odd multiples only: consecutive ones are 2p apart, which is p bits
+            for (long bit = (start - lo - 1) / 2; bit < odds; bit += p) {
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+        return odds;
+    }
+
+    private static int writeLine(long value, byte[] buffer, int position) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        buffer[position + digits] = '\n';
+        return position + digits + 1;
+    }
+
+    private static int[] oddPrimesUpTo(int max) {
+        boolean[] composite = new boolean[max + 1];
+        int[] primes = new int[max];
+        int count = 0;
+        for (int i = 3; i <= max; i += 2) {
+            if (!composite[i]) {
+                primes[count++] = i;
+                for (long j = (long) i * i; j <= max; j += 2L * i) {
+                    composite[(int) j] = true;
+                }
+            }
+        }
+        return Arrays.copyOf(primes, count);
+    }
+
+    /** Counts segments {@code [from, to)}; returns the prime count and how many came from the cache. */
+    private final class SegmentTask extends RecursiveTask<long[]> {
+
+        private final ComputeJob job;
+        private final int limit;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SegmentTask(ComputeJob job, int limit, int from, int to, int threshold) {
+            this.job = job;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                SegmentTask left = new SegmentTask(job, limit, from, middle, threshold);
+                left.fork();
+                long[] right = new SegmentTask(job, limit, middle, to, threshold).compute();
+                long[] joined = left.join();
+                return new long[] {joined[0] + right[0], joined[1] + right[1]};
+            }
+            // One bitset per leaf, reused for each of its segments
+            long[] bits = new long[SEGMENT_WORDS];
+            boolean[] cached = new boolean[1];
+            long count = 0;
+            long fromCache = 0;
+            for (int index = from; index < to; index++) {
+                job.checkpoint();
+                count += countSegment(index, limit, bits, cached);
+                fromCache += cached[0] ? 1 : 0;
+            }
+            return new long[] {count, fromCache};
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.otel.servicea.config;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorNettyClientRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Shared, pooled HTTP client for inter-service calls.
+ *
+ * <p>A single Reactor Netty {@link ConnectionProvider} keeps one keep-alive pool per route. Pool
+ * metrics (active/leased, idle, pending, total) are published through Micrometer's global
+ * registry, which Spring Boot exports on {@code /actuator/prometheus} as
+ * {@code reactor_netty_connection_provider_*}.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider connectionProvider(HttpClientProperties properties) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("service-a-http")
+            .maxConnections(properties.getMaxConnections())
+            .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+            .maxIdleTime(properties.getMaxIdleTime())
+            .maxLifeTime(properties.getMaxLifeTime())
+            .evictInBackground(properties.getEvictInBackground())
+            .metrics(true);
+
+        properties.getRoutes().forEach((route, limits) -> {
+            int separator = route.lastIndexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("http.client.routes key must be host:port, got: " + route);
+            }
+            InetSocketAddress address = InetSocketAddress.createUnresolved(
+                route.substring(0, separator), Integer.parseInt(route.substring(separator + 1)));
+            builder.forRemoteHost(address, spec -> {
+                spec.maxConnections(limits.getMaxConnections() != null
+                    ? limits.getMaxConnections() : properties.getMaxConnections());
+                spec.pendingAcquireMaxCount(limits.getPendingAcquireMaxCount() != null
+                    ? limits.getPendingAcquireMaxCount() : properties.getPendingAcquireMaxCount());
+            });
+            log.info("HTTP client: route {} limited to {}", route, limits);
+        });
+
+        return builder.build();
+    }
+
+    @Bean
+    public HttpClient httpClient(ConnectionProvider connectionProvider, HttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(true)
+            .responseTimeout(properties.getReadTimeout());
+
+        if (properties.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, HttpClient httpClient, HttpClientProperties properties) {
+        return builder
+            .requestFactory(() -> {
+                ReactorNettyClientRequestFactory requestFactory = new ReactorNettyClientRequestFactory(httpClient);
+                requestFactory.setReadTimeout(properties.getReadTimeout());
+                requestFactory.setExchangeTimeout(properties.getReadTimeout());
+                return requestFactory;
+            })
+            .build();
+    }
+
+    // Non-blocking client used when service.b.client.mode=reactive; shares the same pool.
+    @Bean
+    public WebClient webClient(WebClient.Builder builder, HttpClient httpClient) {
+        return builder
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
+}
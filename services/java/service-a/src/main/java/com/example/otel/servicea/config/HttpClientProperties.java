@@ -0,0 +1,49 @@
+package com.example.otel.servicea.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the pooled HTTP client used for inter-service calls.
+ */
+@Data
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+
+    /** Maximum connections per route (remote host:port). */
+    private int maxConnections = 200;
+
+    /** Requests allowed to wait for a connection once a route is at its limit. */
+    private int pendingAcquireMaxCount = 1000;
+
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /** Time allowed for the response to arrive once the request is written. */
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /** Idle keep-alive connections are closed after this long. */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    /** Connections are recycled after this long so new replicas receive traffic. */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    private Duration evictInBackground = Duration.ofSeconds(30);
+
+    /** Negotiate HTTP/2 over cleartext (h2c), falling back to HTTP/1.1. */
+    private boolean http2 = false;
+
+    /** Per-route overrides keyed by "host:port". */
+    private Map<String, Route> routes = new HashMap<>();
+
+    @Data
+    public static class Route {
+        private Integer maxConnections;
+        private Integer pendingAcquireMaxCount;
+    }
+}
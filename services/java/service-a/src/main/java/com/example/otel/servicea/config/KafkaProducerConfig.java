@@ -1,5 +1,8 @@
 package com.example.otel.servicea.config;
 
+import com.example.otel.servicea.event.ServiceEvent;
+import com.example.otel.servicea.event.ServiceEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -7,6 +10,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 
 import java.util.HashMap;
@@ -18,20 +22,59 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers:kafka-0.kafka.services.svc.cluster.local:9092}")
     private String bootstrapServers;
 
+    // Throughput: records for the same partition are grouped into batches of up to batch.size
+    // bytes, waiting at most linger.ms for a batch to fill, then compressed as a whole
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    // Backpressure: send() blocks for up to max.block.ms once buffer.memory is full, then fails
+    @Value("${kafka.producer.buffer-memory:67108864}")
+    private long bufferMemory;
+
+    @Value("${kafka.producer.max-block-ms:5000}")
+    private long maxBlockMs;
+
+    // Upper bound for a record to be acked, including retries; every send future completes by then.
+    // Must be at least linger.ms + request.timeout.ms (30s)
+    @Value("${kafka.producer.delivery-timeout-ms:120000}")
+    private int deliveryTimeoutMs;
+
+    // binary (default) or json; json only while consumers that cannot read binary are still running
+    @Value("${kafka.producer.event-format:binary}")
+    private String eventFormat;
+
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ProducerFactory<String, ServiceEvent> producerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ServiceEventSerializer.class);
+        configProps.put(ServiceEventSerializer.FORMAT_CONFIG, eventFormat);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 1);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        // Idempotence keeps retries from duplicating or reordering records with 5 batches in flight
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+
+        DefaultKafkaProducerFactory<String, ServiceEvent> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Publishes the client's own metrics (kafka_producer_*) to /actuator/prometheus
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, ServiceEvent> kafkaTemplate(ProducerFactory<String, ServiceEvent> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 }
@@ -0,0 +1,10 @@
+package com.example.otel.servicea.event;
+
+import java.util.UUID;
+
+/**
+ * Message published to the {@code service-events} topic. Encoded on the wire by
+ * {@link ServiceEventCodec}.
+ */
+public record ServiceEvent(UUID messageId, long timestamp, String source, String message) {
+}
@@ -0,0 +1,23 @@
+package com.example.otel.servicea.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka {@link Deserializer} for {@link ServiceEvent}; reads both the binary and the legacy
+ * JSON format.
+ */
+public class ServiceEventDeserializer implements Deserializer<ServiceEvent> {
+
+    @Override
+    public ServiceEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return ServiceEventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Cannot decode service event from " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.otel.servicea.kafka;
+
+import com.example.otel.servicea.event.ServiceEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes {@code service-events} messages and reports what the broker acknowledged.
+ *
+ * <p>Every message of a batch is handed to the producer before any acknowledgement is awaited,
+ * so the producer can fill, compress and pipeline whole record batches. When the producer's
+ * {@code buffer.memory} is exhausted, {@code send} blocks the calling thread for up to
+ * {@code max.block.ms}, which slows the HTTP caller down instead of queueing without bound.
+ * Messages that still cannot be buffered are reported as failed.
+ *
+ * <p>A batch stops sending at the first message that timed out in {@code send} (buffer still full,
+ * or no metadata because the broker is unreachable) and fails the rest straight away, so a batch
+ * holds its thread for about one {@code max.block.ms} rather than one per message.
+ */
+@Slf4j
+@Component
+public class EventPublisher {
+
+    public static final String TOPIC = "service-events";
+
+    private final KafkaTemplate<String, ServiceEvent> kafkaTemplate;
+    private final Counter ackedCounter;
+    private final Counter failedCounter;
+
+    public EventPublisher(KafkaTemplate<String, ServiceEvent> kafkaTemplate,
+                          MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.ackedCounter = Counter.builder("kafka.publish.messages")
+            .tag("result", "acked")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("kafka.publish.messages")
+            .tag("result", "failed")
+            .register(meterRegistry);
+    }
+
+    /** Sends one message; the future completes with its delivery result once the broker answers. */
+    public CompletableFuture<Delivery> publish(String message) {
+        ServiceEvent event = event(message);
+        return delivery(event, send(event));
+    }
+
+    /**
+     * Sends all messages, then completes once every one of them is acked or has failed. After a
+     * {@code send} times out, the remaining messages fail with the same error without being sent.
+     */
+    public CompletableFuture<List<Delivery>> publishAll(List<String> messages) {
+        List<CompletableFuture<Delivery>> pending = new ArrayList<>(messages.size());
+        Throwable blocked = null;
+        for (String message : messages) {
+            ServiceEvent event = event(message);
+            if (blocked != null) {
+                failedCounter.increment();
+                pending.add(CompletableFuture.completedFuture(
+                    Delivery.failed(event.messageId().toString(), event.timestamp(), blocked)));
+                continue;
+            }
+            CompletableFuture<SendResult<String, ServiceEvent>> sent = send(event);
+            if (sent.isCompletedExceptionally()
+                && NestedExceptionUtils.getMostSpecificCause(sent.exceptionNow()) instanceof TimeoutException timeout) {
+                // The next send would block for max.block.ms as well
+                blocked = timeout;
+                log.warn("Service A: Kafka send timed out, failing the remaining {} messages of the batch",
+                    messages.size() - pending.size() - 1);
+            }
+            pending.add(delivery(event, sent));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                List<Delivery> deliveries = new ArrayList<>(pending.size());
+                for (CompletableFuture<Delivery> delivery : pending) {
+                    deliveries.add(delivery.join());
+                }
+                return deliveries;
+            });
+    }
+
+    private static ServiceEvent event(String message) {
+        return new ServiceEvent(UUID.randomUUID(), System.currentTimeMillis(), "service-a", message);
+    }
+
+    /**
+     * Hands the event to the producer. A send that could not be buffered, because the buffer
+     * stayed full or metadata was missing for max.block.ms, or because the producer is closed,
+     * comes back already failed.
+     */
+    private CompletableFuture<SendResult<String, ServiceEvent>> send(ServiceEvent event) {
+        try {
+            return kafkaTemplate.send(TOPIC, event.messageId().toString(), event);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<Delivery> delivery(ServiceEvent event,
+                                                 CompletableFuture<SendResult<String, ServiceEvent>> sent) {
+        String messageId = event.messageId().toString();
+        long timestamp = event.timestamp();
+        return sent.handle((result, error) -> {
+            if (error != null) {
+                failedCounter.increment();
+                // Report the root cause, e.g. a broker error rather than the KafkaException wrapping it
+                Throwable cause = NestedExceptionUtils.getMostSpecificCause(error);
+                log.warn("Service A: Kafka delivery failed for message {}: {}", messageId, cause.toString());
+                return Delivery.failed(messageId, timestamp, cause);
+            }
+            ackedCounter.increment();
+            return Delivery.acked(messageId, timestamp, result.getRecordMetadata());
+        });
+    }
+
+    /** Outcome of one message: the partition and offset it was written to, or why it was not. */
+    public record Delivery(String messageId, long timestamp, boolean acked,
+                           int partition, long offset, String error) {
+
+        static Delivery acked(String messageId, long timestamp, RecordMetadata metadata) {
+            return new Delivery(messageId, timestamp, true, metadata.partition(), metadata.offset(), null);
+        }
+
+        static Delivery failed(String messageId, long timestamp, Throwable cause) {
+            return new Delivery(messageId, timestamp, false, -1, -1, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        }
+
+        public Map<String, Object> toResponse() {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("messageId", messageId);
+            data.put("status", acked ? "acked" : "failed");
+            if (acked) {
+                data.put("partition", partition);
+                data.put("offset", offset);
+            } else {
+                data.put("error", error);
+            }
+            return data;
+        }
+    }
+}
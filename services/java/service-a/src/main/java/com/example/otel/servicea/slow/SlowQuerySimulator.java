@@ -0,0 +1,128 @@
+package com.example.otel.servicea.slow;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Waits out the delay of the {@code /slow/database} endpoint.
+ *
+ * <p>In {@code async} mode the delay is a task on one shared timer thread; the request thread
+ * returns to Tomcat at once and the response is written when the returned future completes. If
+ * that future is completed or cancelled first, the task is cancelled with it. In
+ * {@code blocking} mode the request thread sleeps for the whole delay, as before, so a few hundred
+ * slow calls take every Tomcat worker.
+ *
+ * <p>{@code slow.database.in.flight}, tagged by mode, counts the queries waiting right now; in
+ * {@code blocking} mode that is the number of request threads held.
+ *
+ * <p>Delays are limited to {@code spring.mvc.async.request-timeout}: Spring answers a longer async
+ * request with 503 but does not cancel its future, so the task would wait on for nothing.
+ */
+@Slf4j
+@Component
+public class SlowQuerySimulator {
+
+    public enum Mode {
+        ASYNC, BLOCKING;
+
+        /** Case-insensitive lookup for request parameters. */
+        public static Optional<Mode> parse(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return Optional.of(mode);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private final Mode defaultMode;
+    private final Duration maxDelay;
+    private final ScheduledThreadPoolExecutor timer;
+    private final AtomicInteger waitingAsync = new AtomicInteger();
+    private final AtomicInteger waitingBlocking = new AtomicInteger();
+
+    public SlowQuerySimulator(MeterRegistry meterRegistry,
+                              @Value("${slow.database.mode:async}") Mode defaultMode,
+                              @Value("${spring.mvc.async.request-timeout:30s}") Duration maxDelay) {
+        this.defaultMode = defaultMode;
+        this.maxDelay = maxDelay;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "service-a-slow-query-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Cancelled waits leave the queue at once instead of at their due time
+        this.timer.setRemoveOnCancelPolicy(true);
+        inFlightGauge(meterRegistry, Mode.ASYNC, waitingAsync);
+        inFlightGauge(meterRegistry, Mode.BLOCKING, waitingBlocking);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    public Mode defaultMode() {
+        return defaultMode;
+    }
+
+    /** Longest delay a query may be given, the async request timeout. */
+    public long maxDelayMs() {
+        return maxDelay.toMillis();
+    }
+
+    /**
+     * Waits {@code delayMs} and completes with the time actually waited, in milliseconds. In
+     * {@code async} mode the future completes on the timer thread, so anything chained to it must
+     * be short.
+     */
+    public CompletableFuture<Long> query(Mode mode, long delayMs) {
+        long start = System.nanoTime();
+        if (mode == Mode.BLOCKING) {
+            waitingBlocking.incrementAndGet();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Service A: Sleep interrupted", e);
+            } finally {
+                waitingBlocking.decrementAndGet();
+            }
+            return CompletableFuture.completedFuture(elapsedMs(start));
+        }
+
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        waitingAsync.incrementAndGet();
+        ScheduledFuture<?> task = timer.schedule(() -> result.complete(elapsedMs(start)), delayMs, TimeUnit.MILLISECONDS);
+        // Runs once however the result ends: on time, cancelled or completed by the caller
+        result.whenComplete((duration, error) -> {
+            task.cancel(false);
+            waitingAsync.decrementAndGet();
+        });
+        return result;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static void inFlightGauge(MeterRegistry meterRegistry, Mode mode, AtomicInteger waiting) {
+        Gauge.builder("slow.database.in.flight", waiting, AtomicInteger::get)
+            .description("Simulated database queries waiting; in blocking mode each holds a request thread")
+            .tag("mode", mode.name().toLowerCase())
+            .register(meterRegistry);
+    }
+}
@@ -1,18 +1,41 @@
 package com.example.otel.serviceb;
 
+import com.example.otel.serviceb.client.ServiceCClient;
+import com.example.otel.serviceb.compute.ComputePool;
+import com.example.otel.serviceb.compute.ComputeRejectedException;
+import com.example.otel.serviceb.compute.HashEngine;
+import com.example.otel.serviceb.compute.PrimeEngine;
+import com.example.otel.serviceb.memory.CollectionEngine;
+import com.example.otel.serviceb.memory.MemoryAllocator;
+import com.example.otel.serviceb.slow.SlowQuerySimulator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
-
-import java.security.MessageDigest;
-import java.nio.charset.StandardCharsets;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @RestController
@@ -20,13 +43,34 @@ import java.util.concurrent.ThreadLocalRandom;
 public class BackendController {
 
     @Autowired
-    private RestTemplate restTemplate;
+    private ServiceCClient serviceCClient;
+
+    @Autowired
+    private ComputePool computePool;
+
+    @Autowired
+    private PrimeEngine primeEngine;
+
+    @Autowired
+    private HashEngine hashEngine;
+
+    @Value("${compute.hash.max-chains:64}")
+    private int maxHashChains;
+
+    @Autowired
+    private MemoryAllocator memoryAllocator;
+
+    @Value("${memory.allocate.max-hold:10m}")
+    private Duration maxAllocateHold;
 
-    @Value("${service.c.url:http://service-c:8082}")
-    private String serviceCUrl;
+    @Autowired
+    private CollectionEngine collectionEngine;
+
+    @Autowired
+    private SlowQuerySimulator slowQuerySimulator;
 
     @GetMapping("/user/{userId}")
-    public Map<String, Object> getUser(@PathVariable String userId) {
+    public Mono<ResponseEntity<Map<String, Object>>> getUser(@PathVariable String userId) {
         log.info("Service B: Processing user request for userId: {}", userId);
 
         // Simulate some processing
@@ -37,24 +81,23 @@ public class BackendController {
         }
 
         // Call Service C
-        String url = serviceCUrl + "/api/data/user/" + userId;
-        log.info("Service B: Calling Service C at {}", url);
-
-        Map<String, Object> serviceCResponse = restTemplate.getForObject(url, Map.class);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "service-b");
-        response.put("userId", userId);
-        response.put("processed", true);
-        response.put("dataFromServiceC", serviceCResponse);
-        response.put("timestamp", System.currentTimeMillis());
+        return fromServiceC(serviceCClient.get(UriComponentsBuilder.fromPath("/api/data/user/{userId}")
+                .encode().buildAndExpand(userId))
+            .map(serviceCResponse -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("service", "service-b");
+                response.put("userId", userId);
+                response.put("processed", true);
+                response.put("dataFromServiceC", serviceCResponse);
+                response.put("timestamp", System.currentTimeMillis());
 
-        log.info("Service B: Completed user request for userId: {}", userId);
-        return response;
+                log.info("Service B: Completed user request for userId: {}", userId);
+                return response;
+            }));
     }
 
     @GetMapping("/order/{orderId}")
-    public Map<String, Object> getOrder(@PathVariable String orderId) {
+    public Mono<ResponseEntity<Map<String, Object>>> getOrder(@PathVariable String orderId) {
         log.info("Service B: Processing order request for orderId: {}", orderId);
 
         // Simulate some processing
@@ -65,20 +108,75 @@ public class BackendController {
         }
 
         // Call Service C
-        String url = serviceCUrl + "/api/data/order/" + orderId;
-        log.info("Service B: Calling Service C at {}", url);
+        return fromServiceC(serviceCClient.get(UriComponentsBuilder.fromPath("/api/data/order/{orderId}")
+                .encode().buildAndExpand(orderId))
+            .map(serviceCResponse -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("service", "service-b");
+                response.put("orderId", orderId);
+                response.put("processed", true);
+                response.put("dataFromServiceC", serviceCResponse);
+                response.put("timestamp", System.currentTimeMillis());
 
-        Map<String, Object> serviceCResponse = restTemplate.getForObject(url, Map.class);
+                log.info("Service B: Completed order request for orderId: {}", orderId);
+                return response;
+            }));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "service-b");
-        response.put("orderId", orderId);
-        response.put("processed", true);
-        response.put("dataFromServiceC", serviceCResponse);
-        response.put("timestamp", System.currentTimeMillis());
+    // Batch variants: simulated processing is paid once per batch, and Service C
+    // answers all ids with a single query
+    @GetMapping(value = "/users", params = "ids")
+    public Mono<ResponseEntity<Map<String, Object>>> getUsers(@RequestParam List<String> ids) {
+        log.info("Service B: Processing batch user request for {} userIds", ids.size());
 
-        log.info("Service B: Completed order request for orderId: {}", orderId);
-        return response;
+        // Simulate some processing
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Call Service C
+        return fromServiceC(serviceCClient.get(UriComponentsBuilder.fromPath("/api/data/users")
+                .queryParam("ids", ids).build())
+            .map(serviceCResponse -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("service", "service-b");
+                response.put("userIds", ids);
+                response.put("processed", true);
+                response.put("dataFromServiceC", serviceCResponse);
+                response.put("timestamp", System.currentTimeMillis());
+
+                log.info("Service B: Completed batch user request for {} userIds", ids.size());
+                return response;
+            }));
+    }
+
+    @GetMapping(value = "/orders", params = "ids")
+    public Mono<ResponseEntity<Map<String, Object>>> getOrders(@RequestParam List<String> ids) {
+        log.info("Service B: Processing batch order request for {} orderIds", ids.size());
+
+        // Simulate some processing
+        try {
+            Thread.sleep(150);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Call Service C
+        return fromServiceC(serviceCClient.get(UriComponentsBuilder.fromPath("/api/data/orders")
+                .queryParam("ids", ids).build())
+            .map(serviceCResponse -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("service", "service-b");
+                response.put("orderIds", ids);
+                response.put("processed", true);
+                response.put("dataFromServiceC", serviceCResponse);
+                response.put("timestamp", System.currentTimeMillis());
+
+                log.info("Service B: Completed batch order request for {} orderIds", ids.size());
+                return response;
+            }));
     }
 
     @GetMapping("/hello")
@@ -102,152 +200,287 @@ public class BackendController {
     }
 
     // CPU-intensive endpoint: Prime number calculation
+    // algorithm=sieve (default): segmented parallel sieve with cached segment counts
+    // algorithm=trial: the original trial division, for comparison
+    // Runs through the compute pool's admission control; timeoutMs shortens the deadline
     @GetMapping("/compute/primes/{limit}")
-    public Map<String, Object> computePrimes(@PathVariable int limit) {
-        log.info("Service B: Computing primes up to {}", limit);
-        long startTime = System.currentTimeMillis();
-
-        List<Integer> primes = new ArrayList<>();
-        for (int num = 2; num <= limit; num++) {
-            if (isPrime(num)) {
-                primes.add(num);
-            }
+    public DeferredResult<ResponseEntity<Map<String, Object>>> computePrimes(@PathVariable int limit,
+                                                                             @RequestParam(defaultValue = "sieve") String algorithm,
+                                                                             @RequestParam(required = false) Long timeoutMs) {
+        PrimeEngine.Algorithm selected = PrimeEngine.Algorithm.parse(algorithm).orElse(null);
+        if (selected == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("service", "service-b");
+            error.put("error", "algorithm must be sieve or trial");
+            error.put("algorithm", algorithm);
+            error.put("timestamp", System.currentTimeMillis());
+            return completed(ResponseEntity.badRequest().body(error));
+        }
+        if (limit < 0) {
+            return completed(badRequest("limit must not be negative"));
         }
 
-        long duration = System.currentTimeMillis() - startTime;
+        log.info("Service B: Computing primes up to {} with {}", limit, selected);
+        long startTime = System.nanoTime();
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "service-b");
-        response.put("operation", "prime-calculation");
-        response.put("limit", limit);
-        response.put("primesFound", primes.size());
-        response.put("durationMs", duration);
-        response.put("timestamp", System.currentTimeMillis());
+        return compute("primes", timeoutMs, job -> {
+            PrimeEngine.Result result = primeEngine.count(limit, selected, job);
 
-        log.info("Service B: Found {} primes in {}ms", primes.size(), duration);
-        return response;
+            long duration = (System.nanoTime() - startTime) / 1_000_000;
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("service", "service-b");
+            response.put("operation", "prime-calculation");
+            response.put("algorithm", selected.name().toLowerCase());
+            response.put("limit", limit);
+            response.put("primesFound", result.count());
+            if (selected == PrimeEngine.Algorithm.SIEVE) {
+                response.put("segments", result.segments());
+                response.put("cachedSegments", result.cachedSegments());
+                response.put("parallelism", primeEngine.parallelism());
+            }
+            response.put("durationMs", duration);
+            response.put("timestamp", System.currentTimeMillis());
+
+            log.info("Service B: Found {} primes in {}ms", result.count(), duration);
+            return ResponseEntity.ok(response);
+        });
     }
 
-    // CPU-intensive endpoint: Hash computation
-    @GetMapping("/compute/hash/{iterations}")
-    public Map<String, Object> computeHash(@PathVariable int iterations) {
-        log.info("Service B: Computing hash with {} iterations", iterations);
-        long startTime = System.currentTimeMillis();
+    // Streams the primes in [from, to], one per line, without holding them in memory
+    // Runs as a compute pool job like /compute/primes/{limit}: a full queue is rejected with 503 before
+    // anything is written. The sieve stops within a segment once the deadline passes, ending the
+    // stream with an error line, or once the client goes away
+    @GetMapping(value = "/compute/primes/range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamPrimes(@RequestParam(defaultValue = "2") int from,
+                                                            @RequestParam int to,
+                                                            @RequestParam(required = false) Long timeoutMs) {
+        if (to < from) {
+            return emitted(badRequest("to must not be less than from"));
+        }
+        if (timeoutMs != null && timeoutMs <= 0) {
+            return emitted(badRequest("timeoutMs must be positive"));
+        }
+        log.info("Service B: Streaming primes from {} to {}", from, to);
+        long startTime = System.nanoTime();
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
 
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                emitter.send(Arrays.copyOfRange(b, off, off + len), MediaType.APPLICATION_NDJSON);
+            }
+        };
+        CompletableFuture<Long> future;
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            String data = "ServiceB-" + System.currentTimeMillis();
+            future = computePool.submit("primes-stream", timeoutMs == null ? null : Duration.ofMillis(timeoutMs),
+                job -> primeEngine.stream(from, to, out, job));
+        } catch (ComputeRejectedException e) {
+            log.warn("Service B: Rejected primes-stream request: {}", e.getMessage());
+            return emitted(unavailable(e.getMessage()));
+        }
 
-            for (int i = 0; i < iterations; i++) {
-                byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-                data = Base64.getEncoder().encodeToString(hash);
+        emitter.onTimeout(() -> future.cancel(false));
+        emitter.onError(error -> future.cancel(false));
+        future.whenComplete((primes, error) -> {
+            if (error == null) {
+                log.info("Service B: Streamed {} primes in {}ms", primes, (System.nanoTime() - startTime) / 1_000_000);
+                emitter.complete();
+            } else if (error instanceof TimeoutException) {
+                log.warn("Service B: Primes stream from {} to {} exceeded its deadline", from, to);
+                try {
+                    emitter.send("{\"error\":\"primes-stream request exceeded its deadline\"}\n", MediaType.APPLICATION_NDJSON);
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(error);
+                }
+            } else if (!(error instanceof CancellationException)) {
+                emitter.completeWithError(error);
             }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
 
-            long duration = System.currentTimeMillis() - startTime;
+    // CPU-intensive endpoint: Hash computation
+    // mode=reuse (default): digest and Base64 into reused buffers; mode=allocating: the original loop
+    // chains=N runs N independent chains in parallel on the compute pool
+    // Runs through the compute pool's admission control; timeoutMs shortens the deadline
+    @GetMapping("/compute/hash/{iterations}")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> computeHash(@PathVariable int iterations,
+                                                                           @RequestParam(defaultValue = "SHA-256") String algorithm,
+                                                                           @RequestParam(defaultValue = "reuse") String mode,
+                                                                           @RequestParam(defaultValue = "1") int chains,
+                                                                           @RequestParam(required = false) Long timeoutMs) {
+        HashEngine.Mode selected = HashEngine.Mode.parse(mode).orElse(null);
+        if (selected == null) {
+            return completed(badRequest("mode must be reuse or allocating"));
+        }
+        if (chains < 1 || chains > maxHashChains) {
+            return completed(badRequest("chains must be between 1 and " + maxHashChains));
+        }
+
+        log.info("Service B: Computing hash with {} iterations, {} {} chains in {} mode",
+            iterations, chains, algorithm, selected);
+        return compute("hash", timeoutMs, job -> {
+            HashEngine.Result result;
+            try {
+                result = hashEngine.run(algorithm, selected, iterations, chains,
+                    "ServiceB-" + System.currentTimeMillis(), job);
+            } catch (NoSuchAlgorithmException e) {
+                return badRequest("unknown algorithm " + algorithm);
+            }
+            long duration = TimeUnit.NANOSECONDS.toMillis(result.durationNanos());
 
             Map<String, Object> response = new HashMap<>();
             response.put("service", "service-b");
             response.put("operation", "hash-computation");
+            response.put("algorithm", algorithm);
+            response.put("mode", selected.name().toLowerCase());
             response.put("iterations", iterations);
-            response.put("finalHash", data.substring(0, 32));
+            response.put("chains", chains);
+            response.put("finalHash", result.finalHash());
+            response.put("hashesPerSecond", Math.round(result.hashesPerSecond()));
+            response.put("allocatedBytesPerHash", result.allocatedBytesPerHash());
             response.put("durationMs", duration);
             response.put("timestamp", System.currentTimeMillis());
 
             log.info("Service B: Hash computation completed in {}ms", duration);
-            return response;
-        } catch (Exception e) {
-            log.error("Service B: Hash computation failed", e);
-            throw new RuntimeException("Hash computation failed", e);
-        }
+            return ResponseEntity.ok(response);
+        });
     }
 
     // Memory-intensive endpoint: Large data structure creation
+    // mode=heap (default): byte[] chunks; direct: direct ByteBuffers; segment: native memory from an
+    // Arena; mapped: a memory-mapped temp file. holdMs keeps the memory allocated before release
     @GetMapping("/memory/allocate/{sizeMb}")
-    public Map<String, Object> allocateMemory(@PathVariable int sizeMb) {
-        log.info("Service B: Allocating {}MB of memory", sizeMb);
-        long startTime = System.currentTimeMillis();
-
-        List<byte[]> dataList = new ArrayList<>();
-        int chunks = sizeMb;
-
-        for (int i = 0; i < chunks; i++) {
-            byte[] chunk = new byte[1024 * 1024]; // 1MB
-            ThreadLocalRandom.current().nextBytes(chunk);
-            dataList.add(chunk);
+    public ResponseEntity<Map<String, Object>> allocateMemory(@PathVariable int sizeMb,
+                                                              @RequestParam(defaultValue = "heap") String mode,
+                                                              @RequestParam(defaultValue = "0") long holdMs) {
+        MemoryAllocator.Mode selected = MemoryAllocator.Mode.parse(mode).orElse(null);
+        if (selected == null) {
+            return badRequest("mode must be heap, direct, segment or mapped");
+        }
+        if (selected == MemoryAllocator.Mode.SEGMENT && !MemoryAllocator.segmentsSupported()) {
+            return badRequest("segment mode needs java.lang.foreign, which this JDK does not have");
+        }
+        if (holdMs < 0 || holdMs > maxAllocateHold.toMillis()) {
+            return badRequest("holdMs must be between 0 and " + maxAllocateHold.toMillis());
         }
 
-        long duration = System.currentTimeMillis() - startTime;
+        log.info("Service B: Allocating {}MB of {} memory, held for {}ms", sizeMb, selected, holdMs);
+        MemoryAllocator.Result result;
+        try {
+            result = memoryAllocator.allocate(selected, sizeMb, holdMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Service B: Allocation interrupted", e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("service", "service-b");
         response.put("operation", "memory-allocation");
+        response.put("mode", selected.name().toLowerCase());
         response.put("allocatedMb", sizeMb);
-        response.put("chunksCreated", dataList.size());
-        response.put("durationMs", duration);
+        response.put("chunksCreated", result.chunks());
+        response.put("heldMs", result.heldMs());
+        response.put("durationMs", result.durationMs());
+        response.put("memoryBefore", result.before().toMap());
+        response.put("memoryAllocated", result.allocated().toMap());
+        response.put("memoryAfter", result.after().toMap());
         response.put("timestamp", System.currentTimeMillis());
 
-        dataList.clear();
-
-        log.info("Service B: Allocated {}MB in {}ms", sizeMb, duration);
-        return response;
+        if (result.error() != null) {
+            // Ran out of heap, direct memory or disk before the requested size
+            response.put("error", result.error());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        log.info("Service B: Allocated {}MB in {}ms", sizeMb, result.durationMs());
+        return ResponseEntity.ok(response);
     }
 
     // Memory-intensive endpoint: Large collection processing
+    // backend=hashmap (default): HashMap of Strings; primitive: open-addressing int/long arrays;
+    // offheap: the same table in a direct buffer. parallel=true scans with a parallel stream
+    // Runs through the compute pool's admission control; timeoutMs shortens the deadline
     @GetMapping("/memory/process/{itemCount}")
-    public Map<String, Object> processLargeCollection(@PathVariable int itemCount) {
-        log.info("Service B: Processing {} items", itemCount);
-        long startTime = System.currentTimeMillis();
-
-        Map<String, String> largeMap = new HashMap<>();
-        for (int i = 0; i < itemCount; i++) {
-            largeMap.put("key-" + i, "value-" + UUID.randomUUID().toString());
+    public DeferredResult<ResponseEntity<Map<String, Object>>> processLargeCollection(@PathVariable int itemCount,
+                                                                                      @RequestParam(defaultValue = "hashmap") String backend,
+                                                                                      @RequestParam(defaultValue = "false") boolean parallel,
+                                                                                      @RequestParam(required = false) Long timeoutMs) {
+        CollectionEngine.Backend selected = CollectionEngine.Backend.parse(backend).orElse(null);
+        if (selected == null) {
+            return completed(badRequest("backend must be hashmap, primitive or offheap"));
+        }
+        try {
+            collectionEngine.validate(selected, itemCount);
+        } catch (IllegalArgumentException e) {
+            return completed(badRequest(e.getMessage()));
         }
 
-        long count = largeMap.values().stream()
-            .filter(v -> v.contains("-"))
-            .count();
-
-        long duration = System.currentTimeMillis() - startTime;
+        log.info("Service B: Processing {} items with {} backend, parallel={}", itemCount, selected, parallel);
+        return compute("collection", timeoutMs, job -> {
+            CollectionEngine.Result result = collectionEngine.run(selected, itemCount, parallel, job);
+            long duration = TimeUnit.NANOSECONDS.toMillis(result.buildNanos() + result.scanNanos());
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "service-b");
-        response.put("operation", "collection-processing");
-        response.put("itemsProcessed", itemCount);
-        response.put("matchedItems", count);
-        response.put("durationMs", duration);
-        response.put("timestamp", System.currentTimeMillis());
-
-        largeMap.clear();
+            Map<String, Object> response = new HashMap<>();
+            response.put("service", "service-b");
+            response.put("operation", "collection-processing");
+            response.put("backend", selected.name().toLowerCase());
+            response.put("parallel", parallel);
+            response.put("itemsProcessed", itemCount);
+            response.put("matchedItems", result.matched());
+            response.put("buildMs", TimeUnit.NANOSECONDS.toMillis(result.buildNanos()));
+            response.put("processMs", TimeUnit.NANOSECONDS.toMillis(result.scanNanos()));
+            response.put("buildItemsPerSecond", Math.round(result.buildItemsPerSecond()));
+            response.put("processItemsPerSecond", Math.round(result.scanItemsPerSecond()));
+            response.put("retainedBytes", result.retainedBytes());
+            response.put("retainedBytesPerItem", result.retainedBytesPerItem());
+            response.put("allocatedBytesPerItem", result.allocatedBytesPerItem());
+            response.put("durationMs", duration);
+            response.put("timestamp", System.currentTimeMillis());
 
-        log.info("Service B: Processed {} items in {}ms", itemCount, duration);
-        return response;
+            log.info("Service B: Processed {} items in {}ms", itemCount, duration);
+            return ResponseEntity.ok(response);
+        });
     }
 
     // Slow endpoint: Simulates database query
+    // mode=async (default from slow.database.mode): waits on a shared timer without holding the
+    // request thread; mode=blocking: sleeps on the request thread, as before
     @GetMapping("/slow/database/{delayMs}")
-    public Map<String, Object> slowDatabase(@PathVariable int delayMs) {
-        log.info("Service B: Simulating database query with {}ms delay", delayMs);
-        long startTime = System.currentTimeMillis();
-
-        try {
-            Thread.sleep(delayMs);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Service B: Sleep interrupted", e);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> slowDatabase(@PathVariable int delayMs,
+                                                                               @RequestParam(required = false) String mode) {
+        SlowQuerySimulator.Mode selected = mode == null
+            ? slowQuerySimulator.defaultMode()
+            : SlowQuerySimulator.Mode.parse(mode).orElse(null);
+        if (selected == null) {
+            return CompletableFuture.completedFuture(badRequest("mode must be async or blocking"));
+        }
+        if (delayMs < 0 || delayMs > slowQuerySimulator.maxDelayMs()) {
+            return CompletableFuture.completedFuture(
+                badRequest("delayMs must be between 0 and " + slowQuerySimulator.maxDelayMs()));
         }
 
-        long duration = System.currentTimeMillis() - startTime;
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "service-b");
-        response.put("operation", "database-query");
-        response.put("expectedDelayMs", delayMs);
-        response.put("actualDurationMs", duration);
-        response.put("resultCount", ThreadLocalRandom.current().nextInt(1, 100));
-        response.put("timestamp", System.currentTimeMillis());
+        log.info("Service B: Simulating database query with {}ms delay in {} mode", delayMs, selected);
+        return slowQuerySimulator.query(selected, delayMs).thenApply(duration -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("service", "service-b");
+            response.put("operation", "database-query");
+            response.put("mode", selected.name().toLowerCase());
+            response.put("expectedDelayMs", delayMs);
+            response.put("actualDurationMs", duration);
+            response.put("resultCount", ThreadLocalRandom.current().nextInt(1, 100));
+            response.put("timestamp", System.currentTimeMillis());
 
-        log.info("Service B: Database simulation completed in {}ms", duration);
-        return response;
+            log.info("Service B: Database simulation completed in {}ms", duration);
+            return ResponseEntity.ok(response);
+        });
     }
 
     // Error simulation endpoint
@@ -270,15 +503,79 @@ public class BackendController {
         }
     }
 
-    // Helper method to check if number is prime
-    private boolean isPrime(int num) {
-        if (num <= 1) return false;
-        if (num == 2) return true;
-        if (num % 2 == 0) return false;
+    // Runs CPU-bound work as a compute pool job. The request thread is released while the job waits
+    // or runs; a full queue is rejected at once with 503, and a passed deadline ends in 503 as well.
+    // If the request times out or the client goes away, the job is cancelled
+    private DeferredResult<ResponseEntity<Map<String, Object>>> compute(
+            String workload, Long timeoutMs, ComputePool.Work<ResponseEntity<Map<String, Object>>> work) {
+        if (timeoutMs != null && timeoutMs <= 0) {
+            return completed(badRequest("timeoutMs must be positive"));
+        }
+        CompletableFuture<ResponseEntity<Map<String, Object>>> future;
+        try {
+            future = computePool.submit(workload, timeoutMs == null ? null : Duration.ofMillis(timeoutMs), work);
+        } catch (ComputeRejectedException e) {
+            log.warn("Service B: Rejected {} request: {}", workload, e.getMessage());
+            return completed(unavailable(e.getMessage()));
+        }
 
-        for (int i = 3; i * i <= num; i += 2) {
-            if (num % i == 0) return false;
+        DeferredResult<ResponseEntity<Map<String, Object>>> deferred = new DeferredResult<>();
+        deferred.onTimeout(() -> future.cancel(false));
+        deferred.onError(error -> future.cancel(false));
+        future.whenComplete((response, error) -> {
+            if (error == null) {
+                deferred.setResult(response);
+            } else if (error instanceof TimeoutException) {
+                deferred.setResult(unavailable(workload + " request exceeded its deadline"));
+            } else if (!(error instanceof CancellationException)) {
+                deferred.setErrorResult(error);
+            }
+        });
+        return deferred;
+    }
+
+    private static DeferredResult<ResponseEntity<Map<String, Object>>> completed(ResponseEntity<Map<String, Object>> response) {
+        DeferredResult<ResponseEntity<Map<String, Object>>> deferred = new DeferredResult<>();
+        deferred.setResult(response);
+        return deferred;
+    }
+
+    // Sends a JSON error through an emitter, for endpoints that stream their successful responses
+    private static ResponseEntity<ResponseBodyEmitter> emitted(ResponseEntity<Map<String, Object>> response) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        try {
+            emitter.send(response.getBody(), MediaType.APPLICATION_JSON);
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
         }
-        return true;
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(emitter);
+    }
+
+    // Helper method for overload: the client should retry later
+    private ResponseEntity<Map<String, Object>> unavailable(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("service", "service-b");
+        error.put("error", message);
+        error.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
+    // Service C rejects ids it cannot parse; that is the caller's error, so it stays a 400
+    private Mono<ResponseEntity<Map<String, Object>>> fromServiceC(Mono<Map<String, Object>> response) {
+        return response.map(ResponseEntity::ok)
+            .onErrorResume(WebClientResponseException.BadRequest.class, e -> Mono.just(badRequest(e.getStatusText())));
+    }
+
+    // Helper method for invalid request parameters
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("service", "service-b");
+        error.put("error", message);
+        error.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.badRequest().body(error);
     }
 }
@@ -1,28 +1,112 @@
 package com.example.otel.serviceb;
 
+import com.example.otel.serviceb.event.ServiceEvent;
+import com.example.otel.serviceb.kafka.ConsumerMetrics;
+import com.example.otel.serviceb.kafka.MessageDeduplicator;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Consumes {@code service-events}. Processing is simulated by {@code kafka.consumer.processing-time-ms}
+ * per decoded record in both modes, so they do the same work and differ only in how records are
+ * polled and committed. Message ids already processed are filtered out by
+ * {@link MessageDeduplicator} before either listener is called.
+ */
 @Slf4j
 @Service
 public class KafkaEventListener {
 
-    @KafkaListener(topics = "service-events", groupId = "service-b-group")
-    public void listen(String message) {
-        log.info("Service B: Received Kafka message: {}", message);
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(KafkaEventListener.class);
+
+    private final ConsumerMetrics consumerMetrics;
+    private final MessageDeduplicator deduplicator;
+    private final long processingTimeMs;
+
+    public KafkaEventListener(ConsumerMetrics consumerMetrics,
+                              MessageDeduplicator deduplicator,
+                              @Value("${kafka.consumer.processing-time-ms:100}") long processingTimeMs) {
+        this.consumerMetrics = consumerMetrics;
+        this.deduplicator = deduplicator;
+        this.processingTimeMs = processingTimeMs;
+    }
+
+    @KafkaListener(id = "service-b-record", topics = "service-events", groupId = "service-b-group",
+        containerFactory = "kafkaListenerContainerFactory")
+    public void listen(ConsumerRecord<String, ServiceEvent> record) {
+        long startTime = consumerMetrics.startRecord(record);
+        ServiceEvent event = record.value();
+        log.info("Service B: Received Kafka message {} from {}", event.messageId(), event.source());
 
         try {
             // Simulate some processing
-            Thread.sleep(100);
+            Thread.sleep(processingTimeMs);
 
             // Process the message
+            deduplicator.processed(event);
             log.info("Service B: Successfully processed message");
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("Service B: Message processing interrupted", e);
         } catch (Exception e) {
             log.error("Service B: Error processing message", e);
+        } finally {
+            consumerMetrics.endRecord(startTime);
+        }
+    }
+
+    @KafkaListener(id = "service-b-batch", topics = "service-events", groupId = "service-b-group",
+        containerFactory = "batchKafkaListenerContainerFactory")
+    public void listenBatch(List<ConsumerRecord<String, ServiceEvent>> records, Acknowledgment acknowledgment) {
+        long startTime = consumerMetrics.startBatch(records);
+        log.info("Service B: Received batch of {} Kafka messages", records.size());
+        int decoded = 0;
+        for (ConsumerRecord<String, ServiceEvent> record : records) {
+            if (record.value() == null) {
+                skipUndecodable(record);
+            } else {
+                decoded++;
+            }
         }
+
+        try {
+            // Simulate some processing, the same per record as in record mode
+            Thread.sleep(processingTimeMs * decoded);
+
+            // Offsets up to the last record of the batch are committed only after it is processed
+            acknowledgment.acknowledge();
+            for (ConsumerRecord<String, ServiceEvent> record : records) {
+                if (record.value() != null) {
+                    deduplicator.processed(record.value());
+                }
+            }
+            log.info("Service B: Successfully processed batch of {} messages", records.size());
+        } catch (InterruptedException e) {
+            // Seek back to the start of the batch, so the next acknowledgment cannot commit past it
+            acknowledgment.nack(0, Duration.ZERO);
+            Thread.currentThread().interrupt();
+            log.error("Service B: Batch processing interrupted, batch will be redelivered", e);
+        } finally {
+            consumerMetrics.endBatch(startTime);
+        }
+    }
+
+    // ErrorHandlingDeserializer hands over undecodable records with a null value; the batch's
+    // acknowledgment commits past them, so this is their only trace
+    private void skipUndecodable(ConsumerRecord<String, ServiceEvent> record) {
+        consumerMetrics.undecodable();
+        DeserializationException error = SerializationUtils.getExceptionFromHeader(record,
+            SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+        log.warn("Service B: Skipping undecodable record {}-{} at offset {}: {}", record.topic(),
+            record.partition(), record.offset(), error != null ? error.getMessage() : "null value");
     }
 }
@@ -2,8 +2,6 @@ package com.example.otel.serviceb;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 public class ServiceBApplication {
@@ -11,9 +9,4 @@ public class ServiceBApplication {
     public static void main(String[] args) {
         SpringApplication.run(ServiceBApplication.class, args);
     }
-
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
 }
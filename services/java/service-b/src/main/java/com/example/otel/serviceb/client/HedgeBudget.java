@@ -0,0 +1,46 @@
+package com.example.otel.serviceb.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that limits hedges to a share of calls. Every call deposits
+ * {@code percent / 100} of a token, up to {@code burst} tokens, and every hedge takes a whole
+ * one. Over any stretch of time, hedges therefore add at most {@code percent} to the load on
+ * Service C, plus the burst.
+ */
+final class HedgeBudget {
+
+    // Balance in thousandths of a token
+    private static final long TOKEN = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance = new AtomicLong();
+
+    HedgeBudget(double percent, int burst) {
+        this.deposit = Math.round(percent / 100 * TOKEN);
+        this.capacity = Math.max(1, burst) * TOKEN;
+    }
+
+    void deposit() {
+        if (balance.get() < capacity) {
+            balance.getAndUpdate(current -> Math.min(capacity, current + deposit));
+        }
+    }
+
+    boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    double tokens() {
+        return balance.get() / (double) TOKEN;
+    }
+}
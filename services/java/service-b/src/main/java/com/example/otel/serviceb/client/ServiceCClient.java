@@ -0,0 +1,206 @@
+package com.example.otel.serviceb.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponents;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Client for calls from Service B to Service C, for idempotent GETs only.
+ *
+ * <p>Each attempt has its own timeout. When the first attempt has not answered within the hedge
+ * delay, a second, identical request is sent and whichever answers first is used; the other one
+ * is cancelled, which closes its connection. The delay follows a percentile of recent first
+ * attempts, so only the slowest few percent of calls are hedged, and {@link HedgeBudget} caps
+ * hedges at a share of calls so a slow Service C is not sent twice the traffic.
+ *
+ * <p>A 4xx answer is final: a second request would get the same. After a 5xx answer, a
+ * connection error or a timeout of the first attempt the hedge goes out straight away, so within
+ * the same budget it doubles as a retry.
+ */
+@Slf4j
+@Component
+public class ServiceCClient {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+        new ParameterizedTypeReference<>() {};
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private enum Attempt { PRIMARY, HEDGE }
+
+    private record Reply(Attempt attempt, ResponseEntity<Map<String, Object>> entity) {}
+
+    private final WebClient webClient;
+    private final String serviceCUrl;
+    private final Duration timeout;
+    private final ServiceCClientProperties.Hedge hedge;
+    private final HedgeBudget budget;
+
+    private final Counter calls;
+    private final Timer primaryLatency;
+    private final Timer hedgeLatency;
+    private final Counter hedgesWon;
+    private final Counter hedgesLost;
+    private final Counter hedgesRejected;
+
+    private volatile long hedgeDelayNanos;
+    private volatile long nextDelayRefresh = System.nanoTime();
+
+    public ServiceCClient(WebClient webClient,
+                          @Value("${service.c.url:http://service-c:8082}") String serviceCUrl,
+                          ServiceCClientProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.serviceCUrl = serviceCUrl;
+        this.timeout = properties.getTimeout();
+        this.hedge = properties.getHedge();
+        this.budget = new HedgeBudget(hedge.getBudgetPercent(), hedge.getBudgetBurst());
+        this.hedgeDelayNanos = hedge.getMaxDelay().toNanos();
+
+        this.calls = Counter.builder("service.c.calls")
+            .description("Calls to Service C, each one or two attempts")
+            .register(meterRegistry);
+        this.primaryLatency = Timer.builder("service.c.attempt")
+            .description("Duration of attempts against Service C, up to their answer or cancellation")
+            .tag("attempt", "primary")
+            .publishPercentiles(hedge.getPercentile())
+            .register(meterRegistry);
+        this.hedgeLatency = Timer.builder("service.c.attempt")
+            .description("Duration of attempts against Service C, up to their answer or cancellation")
+            .tag("attempt", "hedge")
+            .register(meterRegistry);
+        this.hedgesWon = hedges(meterRegistry, "won");
+        this.hedgesLost = hedges(meterRegistry, "lost");
+        this.hedgesRejected = hedges(meterRegistry, "rejected");
+        Gauge.builder("service.c.hedge.delay", this, client -> client.hedgeDelayNanos / 1e9)
+            .description("Time after which a call to Service C is hedged")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("service.c.hedge.budget", budget, HedgeBudget::tokens)
+            .description("Hedges that may be sent right now")
+            .register(meterRegistry);
+
+        log.info("Service B: Calling Service C with {} timeout, hedging {}", timeout,
+            hedge.isEnabled() ? "at p" + hedge.getPercentile() * 100 + " within " + hedge.getBudgetPercent() + "%"
+                : "disabled");
+    }
+
+    private static Counter hedges(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("service.c.hedges")
+            .description("Hedges that answered first (won) or not (lost), or were not sent for lack of budget")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Calls {@code path} on Service C. Components that are not encoded yet are encoded here, so
+     * request values can be passed as they are. A 4xx answer fails with a
+     * {@link WebClientResponseException} whose status text is Service C's {@code error}, if any.
+     */
+    public Mono<Map<String, Object>> get(UriComponents path) {
+        // A URI rather than a string, so WebClient does not expand or encode it again
+        URI url = URI.create(serviceCUrl + path.encode().toUriString());
+        log.info("Service B: Calling Service C at {}", url);
+        calls.increment();
+
+        Mono<Reply> reply;
+        if (hedge.isEnabled()) {
+            budget.deposit();
+            AtomicBoolean hedged = new AtomicBoolean();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Mono<Reply> primary = attempt(url, Attempt.PRIMARY).doOnError(e -> {
+                primaryError.set(e);
+                primaryFailed.tryEmitEmpty();
+            });
+            // Sent at the hedge delay, or straight away if the first attempt fails before it
+            Mono<Reply> second = Mono.firstWithSignal(Mono.delay(Duration.ofNanos(hedgeDelayNanos())).then(),
+                    primaryFailed.asMono())
+                .then(Mono.defer(() -> {
+                    if (!budget.tryWithdraw()) {
+                        hedgesRejected.increment();
+                        return Mono.empty();
+                    }
+                    log.info("Service B: Hedging call to Service C at {}", url);
+                    hedged.set(true);
+                    return attempt(url, Attempt.HEDGE);
+                }));
+            reply = Mono.firstWithValue(primary, second)
+                .doOnNext(winner -> {
+                    if (hedged.get()) {
+                        (winner.attempt() == Attempt.HEDGE ? hedgesWon : hedgesLost).increment();
+                    }
+                })
+                .onErrorMap(NoSuchElementException.class, e -> {
+                    if (hedged.get()) {
+                        hedgesLost.increment();
+                    }
+                    // Report why the first attempt failed rather than that no attempt succeeded
+                    return primaryError.get() != null ? primaryError.get() : e;
+                });
+        } else {
+            reply = attempt(url, Attempt.PRIMARY);
+        }
+
+        return reply.map(answer -> {
+            ResponseEntity<Map<String, Object>> entity = answer.entity();
+            if (entity.getStatusCode().isError()) {
+                Object error = entity.getBody() != null ? entity.getBody().get("error") : null;
+                throw WebClientResponseException.create(entity.getStatusCode().value(),
+                    error != null ? String.valueOf(error) : "Service C answered " + entity.getStatusCode(),
+                    entity.getHeaders(), new byte[0], null);
+            }
+            return entity.getBody() != null ? entity.getBody() : Collections.<String, Object>emptyMap();
+        });
+    }
+
+    private Mono<Reply> attempt(URI url, Attempt attempt) {
+        Timer latency = attempt == Attempt.PRIMARY ? primaryLatency : hedgeLatency;
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.get()
+                .uri(url)
+                .exchangeToMono(response -> response.statusCode().is5xxServerError()
+                    ? response.createError()
+                    : response.toEntity(RESPONSE_TYPE))
+                .timeout(timeout)
+                .map(entity -> new Reply(attempt, entity))
+                // Cancelled and failed attempts count with their time so far; leaving out the
+                // slowest attempts would pull the hedge percentile down
+                .doFinally(signal -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /** The configured percentile of recent first attempts, refreshed at most once a second. */
+    private long hedgeDelayNanos() {
+        long now = System.nanoTime();
+        if (now - nextDelayRefresh >= 0) {
+            nextDelayRefresh = now + DELAY_REFRESH_NANOS;
+            ValueAtPercentile[] percentiles = primaryLatency.takeSnapshot().percentileValues();
+            double observed = percentiles.length > 0 ? percentiles[0].value(TimeUnit.NANOSECONDS) : 0;
+            long delay = observed > 0 ? (long) observed : hedge.getMaxDelay().toNanos();
+            hedgeDelayNanos = Math.min(Math.max(delay, hedge.getMinDelay().toNanos()), hedge.getMaxDelay().toNanos());
+        }
+        return hedgeDelayNanos;
+    }
+}
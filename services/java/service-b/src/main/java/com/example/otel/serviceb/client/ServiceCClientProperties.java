@@ -0,0 +1,39 @@
+package com.example.otel.serviceb.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Timeouts and hedging for calls from Service B to Service C.
+ */
+@Data
+@ConfigurationProperties(prefix = "service.c.client")
+public class ServiceCClientProperties {
+
+    /** Time allowed for each attempt, first request or hedge. */
+    private Duration timeout = Duration.ofSeconds(3);
+
+    private Hedge hedge = new Hedge();
+
+    @Data
+    public static class Hedge {
+
+        private boolean enabled = true;
+
+        /** Latency percentile of recent first attempts after which a hedge is sent. */
+        private double percentile = 0.95;
+
+        private Duration minDelay = Duration.ofMillis(5);
+
+        /** Upper bound for the delay; also used until latencies have been recorded. */
+        private Duration maxDelay = Duration.ofMillis(500);
+
+        /** Hedges allowed, as a percentage of calls. */
+        private double budgetPercent = 10;
+
+        /** Hedges that can be sent back to back once the budget has built up. */
+        private int budgetBurst = 10;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.otel.serviceb.compute;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fork-join pool shared by the CPU-bound {@code /compute} engines, sized by
+ * {@code compute.parallelism} (one thread per core by default). Keeping the work off the common
+ * pool and off the request threads bounds the cores a burst of compute requests can take.
+ *
+ * <p>Requests enter through {@link #submit}, which admits at most {@code compute.max-concurrent}
+ * running jobs and {@code compute.queue-capacity} waiting ones and rejects the rest at once. Each
+ * job has a deadline, {@code compute.deadline} unless the request asks for less; when it passes,
+ * or the caller cancels the returned future, the job stops at its next
+ * {@link ComputeJob#checkpoint()}. A job keeps its slot until it has actually stopped.
+ *
+ * <p>Metrics: {@code compute.queue.depth} and {@code compute.running} gauges,
+ * {@code compute.queue.wait} (admission to start), and {@code compute.rejected} and
+ * {@code compute.cancelled} counters tagged by workload.
+ */
+@Component
+public class ComputePool {
+
+    /** The work of one job; runs on a pool thread and may fork further tasks into the pool. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(ComputeJob job) throws Exception;
+    }
+
+    private final ForkJoinPool pool;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final Duration deadline;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> queueWaits = new ConcurrentHashMap<>();
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+    private int running;
+    private volatile int queued;
+    private volatile int runningGauge;
+
+    public ComputePool(@Value("${compute.parallelism:0}") int parallelism,
+                       @Value("${compute.max-concurrent:0}") int maxConcurrent,
+                       @Value("${compute.queue-capacity:32}") int queueCapacity,
+                       @Value("${compute.deadline:30s}") Duration deadline,
+                       MeterRegistry meterRegistry) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent : pool.getParallelism();
+        this.queueCapacity = Math.max(queueCapacity, 0);
+        this.deadline = deadline;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("compute.queue.depth", this, p -> p.queued)
+            .description("Compute jobs admitted and waiting for a slot")
+            .register(meterRegistry);
+        Gauge.builder("compute.running", this, p -> p.runningGauge)
+            .description("Compute jobs running")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /** Longest deadline a job can have; requests may ask for less. */
+    public Duration deadline() {
+        return deadline;
+    }
+
+    /**
+     * Admits {@code work} and runs it on the pool, or queues it if every slot is busy. The future
+     * completes with a {@link TimeoutException} when the deadline passes, whether the job is still
+     * queued or running; cancelling it cancels the job.
+     *
+     * @param timeout deadline from now, capped at {@link #deadline()}; {@code null} for the cap
+     * @throws ComputeRejectedException if every slot is busy and the queue is full
+     */
+    public <T> CompletableFuture<T> submit(String workload, Duration timeout, Work<T> work) {
+        Duration limit = timeout == null || timeout.compareTo(deadline) > 0 ? deadline : timeout;
+        ComputeJob job = new ComputeJob(limit.toNanos());
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long admitted = System.nanoTime();
+
+        Runnable task = () -> {
+            try {
+                queueWaits.computeIfAbsent(workload, this::queueWait)
+                    .record(System.nanoTime() - admitted, TimeUnit.NANOSECONDS);
+                job.checkpoint();
+                result.complete(work.run(job));
+            } catch (CancellationException e) {
+                // Stopped at a checkpoint: the caller cancelled, or the deadline passed before the timer fired
+                result.completeExceptionally(job.isCancelled() ? e : new TimeoutException("Deadline exceeded"));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                next();
+            }
+        };
+        if (!admit(task)) {
+            counter("compute.rejected", "Compute jobs rejected because the queue was full", workload).increment();
+            throw new ComputeRejectedException("Compute queue is full (" + maxConcurrent + " running, "
+                + queueCapacity + " waiting)");
+        }
+
+        result.orTimeout(limit.toNanos(), TimeUnit.NANOSECONDS).whenComplete((value, error) -> {
+            if (error == null) {
+                return;
+            }
+            if (error instanceof TimeoutException || error instanceof CancellationException) {
+                if (!job.isCancelled()) {
+                    job.cancel();
+                    counter("compute.cancelled", "Compute jobs stopped before completing", workload,
+                        "reason", error instanceof TimeoutException ? "deadline" : "caller").increment();
+                }
+            }
+        });
+        return result;
+    }
+
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return pool.invoke(task);
+    }
+
+    /** Runs the tasks concurrently and returns their results in order; the first failure is rethrown. */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for compute tasks", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private boolean admit(Runnable task) {
+        synchronized (queue) {
+            if (running < maxConcurrent) {
+                runningGauge = ++running;
+            } else if (queue.size() < queueCapacity) {
+                queue.add(task);
+                queued = queue.size();
+                return true;
+            } else {
+                return false;
+            }
+        }
+        pool.execute(task);
+        return true;
+    }
+
+    /** Hands the finished job's slot to the next queued job, if any. */
+    private void next() {
+        Runnable task;
+        synchronized (queue) {
+            task = queue.poll();
+            queued = queue.size();
+            if (task == null) {
+                runningGauge = --running;
+                return;
+            }
+        }
+        pool.execute(task);
+    }
+
+    private Timer queueWait(String workload) {
+        return Timer.builder("compute.queue.wait")
+            .description("Time compute jobs waited for a slot")
+            .tag("workload", workload)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private Counter counter(String name, String description, String workload, String... tags) {
+        return Counter.builder(name)
+            .description(description)
+            .tag("workload", workload)
+            .tags(tags)
+            .register(meterRegistry);
+    }
+}
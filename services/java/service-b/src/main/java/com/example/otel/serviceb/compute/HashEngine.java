@@ -0,0 +1,153 @@
+package com.example.otel.serviceb.compute;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs the hash chain of the {@code /compute/hash} endpoint: each step digests the Base64 text of
+ * the previous digest.
+ *
+ * <p>In {@code reuse} mode a chain allocates its buffers once: the digest is written into a fixed
+ * array and Base64-encoded into the input array of the next step, so the loop itself allocates
+ * nothing and the measurement is CPU only. {@code allocating} mode is the original loop, which
+ * creates a byte array, a digest and a String per step. Either way {@code chains} independent
+ * chains run concurrently on the {@link ComputePool}; bytes allocated are read per chain thread
+ * from the JVM's allocation counters.
+ */
+@Component
+public class HashEngine {
+
+    public enum Mode {
+        REUSE, ALLOCATING;
+
+        /** Case-insensitive lookup for request parameters. */
+        public static Optional<Mode> parse(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return Optional.of(mode);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Outcome of a run. {@code allocatedBytes} is -1 where the JVM cannot count allocations per
+     * thread.
+     */
+    public record Result(String finalHash, long hashes, long durationNanos, long allocatedBytes) {
+
+        public double hashesPerSecond() {
+            return durationNanos > 0 ? hashes * 1e9 / durationNanos : 0;
+        }
+
+        public double allocatedBytesPerHash() {
+            return allocatedBytes >= 0 && hashes > 0 ? (double) allocatedBytes / hashes : -1;
+        }
+    }
+
+    private record ChainResult(String hash, long allocatedBytes) {
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemorySupported() ? threads : null;
+
+    // Check for cancellation every 1024 steps, about 0.2 ms of SHA-256
+    private static final int CHECKPOINT_MASK = 1023;
+
+    private final ComputePool pool;
+
+    public HashEngine(ComputePool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runs {@code chains} chains of {@code iterations} steps. Chain 0 starts from {@code seed},
+     * chain {@code i} from {@code seed + "-" + i}; the result carries the hash of chain 0, truncated
+     * to 32 characters. Every chain stops at its next checkpoint once {@code job} is cancelled.
+     *
+     * @throws NoSuchAlgorithmException if {@code algorithm} is not a {@link MessageDigest} name
+     */
+    public Result run(String algorithm, Mode mode, int iterations, int chains, String seed, ComputeJob job)
+            throws NoSuchAlgorithmException {
+        // Fail on the caller's thread for an unknown algorithm
+        MessageDigest.getInstance(algorithm);
+
+        List<Callable<ChainResult>> tasks = new ArrayList<>(chains);
+        for (int i = 0; i < chains; i++) {
+            String chainSeed = i == 0 ? seed : seed + "-" + i;
+            tasks.add(() -> chain(algorithm, mode, iterations, chainSeed, job));
+        }
+        long start = System.nanoTime();
+        List<ChainResult> results = pool.invokeAll(tasks);
+        long duration = System.nanoTime() - start;
+
+        long allocated = 0;
+        for (ChainResult result : results) {
+            allocated = result.allocatedBytes() < 0 || allocated < 0 ? -1 : allocated + result.allocatedBytes();
+        }
+        return new Result(results.get(0).hash(), (long) iterations * chains, duration, allocated);
+    }
+
+    private static ChainResult chain(String algorithm, Mode mode, int iterations, String seed, ComputeJob job)
+            throws Exception {
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        long allocatedBefore = allocatedBytes();
+        String hash = mode == Mode.REUSE
+            ? reusingChain(digest, iterations, seed, job)
+            : allocatingChain(digest, iterations, seed, job);
+        long allocatedAfter = allocatedBytes();
+        return new ChainResult(hash, allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+    }
+
+    private static String reusingChain(MessageDigest digest, int iterations, String seed, ComputeJob job)
+            throws DigestException {
+        Base64.Encoder encoder = Base64.getEncoder();
+        byte[] hash = new byte[digest.getDigestLength()];
+        int encodedLength = 4 * ((hash.length + 2) / 3);
+        byte[] seedBytes = seed.getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[Math.max(seedBytes.length, encodedLength)];
+        System.arraycopy(seedBytes, 0, data, 0, seedBytes.length);
+        int length = seedBytes.length;
+
+        for (int i = 0; i < iterations; i++) {
+            if ((i & CHECKPOINT_MASK) == 0) {
+                job.checkpoint();
+            }
+            digest.update(data, 0, length);
+            digest.digest(hash, 0, hash.length);
+            // Base64 output is ASCII, so these bytes are the UTF-8 form of the next input
+            length = encoder.encode(hash, data);
+        }
+        return new String(data, 0, Math.min(32, length), StandardCharsets.US_ASCII);
+    }
+
+    /** Original implementation. */
+    private static String allocatingChain(MessageDigest digest, int iterations, String seed, ComputeJob job) {
+        String data = seed;
+        for (int i = 0; i < iterations; i++) {
+            if ((i & CHECKPOINT_MASK) == 0) {
+                job.checkpoint();
+            }
+            byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
+            data = Base64.getEncoder().encodeToString(hash);
+        }
+        return data.substring(0, Math.min(32, data.length()));
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null && THREADS.isThreadAllocatedMemoryEnabled()
+            ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+}
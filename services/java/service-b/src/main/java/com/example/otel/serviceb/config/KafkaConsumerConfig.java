@@ -1,42 +1,148 @@
 package com.example.otel.serviceb.config;
 
+import com.example.otel.serviceb.event.ServiceEvent;
+import com.example.otel.serviceb.event.ServiceEventDeserializer;
+import com.example.otel.serviceb.kafka.ConsumerMetrics;
+import com.example.otel.serviceb.kafka.MessageDeduplicator;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Consumer setup for {@code service-events}.
+ *
+ * <p>In {@code batch} mode (the default) the listener receives everything one poll returned and
+ * commits the offsets itself once the batch is processed. In {@code record} mode it receives one
+ * record at a time with auto-commit, as before. Both containers are defined; only the one for the
+ * selected mode is started.
+ */
+@Slf4j
 @EnableKafka
 @Configuration
 public class KafkaConsumerConfig {
 
+    public enum Mode { RECORD, BATCH }
+
     @Value("${spring.kafka.bootstrap-servers:kafka-0.kafka.services.svc.cluster.local:9092}")
     private String bootstrapServers;
 
+    @Value("${kafka.consumer.mode:batch}")
+    private Mode mode;
+
+    // Consumer threads are virtual when the rest of the service runs on virtual threads
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Batch mode: one consumer thread per partition; threads beyond the partition count stay idle
+    @Value("${kafka.consumer.concurrency:3}")
+    private int concurrency;
+
+    // Fetch sizing: a poll returns at most max.poll.records; the broker answers a fetch once
+    // fetch.min.bytes are available or fetch.max.wait.ms has passed
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.consumer.fetch-min-bytes:1}")
+    private int fetchMinBytes;
+
+    @Value("${kafka.consumer.fetch-max-wait-ms:500}")
+    private int fetchMaxWaitMs;
+
+    @Value("${kafka.consumer.max-partition-fetch-bytes:1048576}")
+    private int maxPartitionFetchBytes;
+
+    // A whole batch must be processed within this interval or the consumer leaves the group
+    @Value("${kafka.consumer.max-poll-interval-ms:300000}")
+    private int maxPollIntervalMs;
+
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, ServiceEvent> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "service-b-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Binary or legacy JSON events. A record that cannot be decoded arrives with a null value
+        // instead of failing the poll: in record mode the error handler logs and skips it, in batch
+        // mode the listener logs and counts it; either way it is committed, not redelivered forever
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, ServiceEventDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
-        return new DefaultKafkaConsumerFactory<>(props);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, mode == Mode.RECORD);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, maxPartitionFetchBytes);
+        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollIntervalMs);
+
+        DefaultKafkaConsumerFactory<String, ServiceEvent> factory = new DefaultKafkaConsumerFactory<>(props);
+        // Publishes the client's own metrics (kafka_consumer_*, including per-partition records_lag)
+        // to /actuator/prometheus; they are read from the client on scrape, not in the poll loop
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, ServiceEvent> kafkaListenerContainerFactory(
+            ConsumerFactory<String, ServiceEvent> consumerFactory, ConsumerMetrics consumerMetrics,
+            MessageDeduplicator deduplicator) {
+        ConcurrentKafkaListenerContainerFactory<String, ServiceEvent> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setConsumerRebalanceListener(consumerMetrics);
+        // Already-processed message ids are dropped before the listener and still committed
+        factory.setRecordFilterStrategy(deduplicator);
+        factory.setAckDiscarded(true);
+        if (virtualThreads) {
+            factory.getContainerProperties().setListenerTaskExecutor(virtualThreadExecutor());
+        }
+        // A single consumer as before; kafka.consumer.concurrency applies to batch mode only
+        factory.setConcurrency(1);
+        factory.setAutoStartup(mode == Mode.RECORD);
         return factory;
     }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ServiceEvent> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, ServiceEvent> consumerFactory, ConsumerMetrics consumerMetrics,
+            MessageDeduplicator deduplicator) {
+        ConcurrentKafkaListenerContainerFactory<String, ServiceEvent> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setConsumerRebalanceListener(consumerMetrics);
+        // Already-processed message ids are dropped before the listener and still committed
+        factory.setRecordFilterStrategy(deduplicator);
+        factory.setAckDiscarded(true);
+        if (virtualThreads) {
+            factory.getContainerProperties().setListenerTaskExecutor(virtualThreadExecutor());
+        }
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
+        // The listener acknowledges once per batch; the commit is sent before the next poll
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setAutoStartup(mode == Mode.BATCH);
+        log.info("Service B: Consuming service-events in {} mode with concurrency {}", mode,
+            mode == Mode.BATCH ? concurrency : 1);
+        return factory;
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("service-b-kafka-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
 }
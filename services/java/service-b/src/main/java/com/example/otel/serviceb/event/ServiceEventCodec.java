@@ -0,0 +1,157 @@
+package com.example.otel.serviceb.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Binary encoding of {@link ServiceEvent}, shared by Service A, B and C.
+ *
+ * <pre>
+ * offset  field
+ * 0       magic      0xE5
+ * 1       version    1
+ * 2       messageId  16 bytes, most then least significant long, big-endian
+ * 18      timestamp  8 bytes, epoch millis, big-endian
+ * 26      source     unsigned varint byte length + UTF-8
+ * ..      message    unsigned varint byte length + UTF-8
+ * ..      (fields added by later versions)
+ * </pre>
+ *
+ * <p>Evolution rules: fields are only ever appended, and a new version bumps the version byte.
+ * A decoder reads the fields it knows and ignores anything after them, so older consumers keep
+ * working on newer events. Fields missing from an older event get a default in the decoder.
+ *
+ * <p>The first byte of the legacy JSON payload is always <code>'{'</code>. That never collides
+ * with the magic byte, so {@link #decode} also accepts events written before this format existed.
+ */
+public final class ServiceEventCodec {
+
+    public static final byte MAGIC = (byte) 0xE5;
+    public static final byte VERSION = 1;
+
+    private static final int FIXED_HEADER_SIZE = 2 + 16 + 8;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ServiceEventCodec() {
+    }
+
+    public static byte[] encode(ServiceEvent event) {
+        byte[] source = utf8(event.source());
+        byte[] message = utf8(event.message());
+
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_HEADER_SIZE
+            + varintSize(source.length) + source.length
+            + varintSize(message.length) + message.length);
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(event.messageId().getMostSignificantBits());
+        buffer.putLong(event.messageId().getLeastSignificantBits());
+        buffer.putLong(event.timestamp());
+        putBytes(buffer, source);
+        putBytes(buffer, message);
+        return buffer.array();
+    }
+
+    public static ServiceEvent decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Empty service event");
+        }
+        if (data[0] == '{') {
+            return decodeJson(data);
+        }
+        if (data[0] != MAGIC) {
+            throw new IllegalArgumentException("Unknown service event format, first byte 0x"
+                + Integer.toHexString(data[0] & 0xFF));
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.get();
+        int version = buffer.get() & 0xFF;
+        if (version < 1) {
+            throw new IllegalArgumentException("Unsupported service event version " + version);
+        }
+        try {
+            UUID messageId = new UUID(buffer.getLong(), buffer.getLong());
+            long timestamp = buffer.getLong();
+            String source = getString(buffer);
+            String message = getString(buffer);
+            // Version 2+ fields would be read here, guarded by version and buffer.hasRemaining()
+            return new ServiceEvent(messageId, timestamp, source, message);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated service event of " + data.length + " bytes", e);
+        }
+    }
+
+    /** Legacy payload, for tooling that still needs it and for comparison. */
+    public static String toJson(ServiceEvent event) {
+        ObjectNode node = OBJECT_MAPPER.createObjectNode();
+        node.put("messageId", event.messageId().toString());
+        node.put("message", event.message());
+        node.put("timestamp", event.timestamp());
+        node.put("source", event.source());
+        return node.toString();
+    }
+
+    private static ServiceEvent decodeJson(byte[] data) {
+        try {
+            JsonNode node = OBJECT_MAPPER.readTree(data);
+            return new ServiceEvent(
+                UUID.fromString(node.path("messageId").asText()),
+                node.path("timestamp").asLong(),
+                node.path("source").asText(null),
+                node.path("message").asText(null));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON service event", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            buffer.put((byte) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed varint length");
+            }
+            byte b = buffer.get();
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds event size");
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
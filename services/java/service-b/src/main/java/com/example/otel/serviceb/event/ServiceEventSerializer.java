@@ -0,0 +1,34 @@
+package com.example.otel.serviceb.event;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Kafka {@link Serializer} for {@link ServiceEvent}. Writes the binary format by default;
+ * setting the producer property {@value #FORMAT_CONFIG} to {@code json} writes the legacy JSON
+ * payload instead, for rollouts where some consumers cannot read the binary format yet.
+ */
+public class ServiceEventSerializer implements Serializer<ServiceEvent> {
+
+    public static final String FORMAT_CONFIG = "service.event.format";
+
+    private boolean json;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        json = format != null && "json".equalsIgnoreCase(format.toString());
+    }
+
+    @Override
+    public byte[] serialize(String topic, ServiceEvent event) {
+        if (event == null) {
+            return null;
+        }
+        return json
+            ? ServiceEventCodec.toJson(event).getBytes(StandardCharsets.UTF_8)
+            : ServiceEventCodec.encode(event);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.otel.serviceb.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener-side metrics for {@code service-b-group}, complementing the client's own
+ * {@code kafka_consumer_*} metrics (including per-partition {@code records_lag}).
+ *
+ * <ul>
+ *   <li>{@code kafka_listener_record_delay_seconds}: record timestamp to start of processing</li>
+ *   <li>{@code kafka_listener_processing_seconds}: time spent in one listener call</li>
+ *   <li>{@code kafka_listener_batch_size}: records per listener call</li>
+ *   <li>{@code kafka_listener_rebalances_total}: partitions assigned, revoked or lost</li>
+ *   <li>{@code kafka_listener_undecodable_total}: records skipped in batch mode because their value
+ *       could not be deserialized</li>
+ * </ul>
+ *
+ * <p>Meters are created once, so recording is a lock-free update per record or batch.
+ */
+@Component
+public class ConsumerMetrics implements ConsumerAwareRebalanceListener {
+
+    private static final String GROUP = "service-b-group";
+
+    private final Timer recordDelay;
+    private final Timer recordProcessing;
+    private final Timer batchProcessing;
+    private final DistributionSummary batchSize;
+    private final Counter assigned;
+    private final Counter revoked;
+    private final Counter lost;
+    private final Counter undecodable;
+
+    public ConsumerMetrics(MeterRegistry meterRegistry) {
+        this.recordDelay = Timer.builder("kafka.listener.record.delay")
+            .description("Time from the record's timestamp until processing started")
+            .tag("group", GROUP)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.recordProcessing = processingTimer(meterRegistry, "record");
+        this.batchProcessing = processingTimer(meterRegistry, "batch");
+        this.batchSize = DistributionSummary.builder("kafka.listener.batch.size")
+            .description("Records per listener call")
+            .tag("group", GROUP)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.assigned = rebalanceCounter(meterRegistry, "assigned");
+        this.revoked = rebalanceCounter(meterRegistry, "revoked");
+        this.lost = rebalanceCounter(meterRegistry, "lost");
+        this.undecodable = Counter.builder("kafka.listener.undecodable")
+            .description("Records skipped because their value could not be deserialized")
+            .tag("group", GROUP)
+            .register(meterRegistry);
+    }
+
+    /** Records the delay of one record and returns the time processing started. */
+    public long startRecord(ConsumerRecord<?, ?> record) {
+        long now = System.currentTimeMillis();
+        recordDelay(record, now);
+        return System.nanoTime();
+    }
+
+    /** Records the delay of every record of a batch and returns the time processing started. */
+    public long startBatch(List<? extends ConsumerRecord<?, ?>> records) {
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<?, ?> record : records) {
+            recordDelay(record, now);
+        }
+        batchSize.record(records.size());
+        return System.nanoTime();
+    }
+
+    public void endRecord(long startNanos) {
+        recordProcessing.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void endBatch(long startNanos) {
+        batchProcessing.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void undecodable() {
+        undecodable.increment();
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        assigned.increment(partitions.size());
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoked.increment(partitions.size());
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        lost.increment(partitions.size());
+    }
+
+    private void recordDelay(ConsumerRecord<?, ?> record, long now) {
+        if (record.timestamp() > 0) {
+            recordDelay.record(Math.max(0, now - record.timestamp()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Timer processingTimer(MeterRegistry meterRegistry, String mode) {
+        return Timer.builder("kafka.listener.processing")
+            .description("Time spent in one listener call")
+            .tag("group", GROUP)
+            .tag("mode", mode)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static Counter rebalanceCounter(MeterRegistry meterRegistry, String event) {
+        return Counter.builder("kafka.listener.rebalances")
+            .description("Partitions assigned, revoked or lost in rebalances")
+            .tag("group", GROUP)
+            .tag("event", event)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.otel.serviceb.kafka;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the most recent message ids, in two generations.
+ *
+ * <p>Ids are added to the current generation. Once it holds {@code capacity} ids or is older than
+ * the window, the previous generation is dropped and a new, empty one becomes current, so a
+ * lookup always covers at least the last full generation. Memory is fixed at two bit arrays sized
+ * for {@code capacity} ids at the target false-positive rate.
+ *
+ * <p>Lookups and inserts are lock-free. Two threads adding the same id at the same time may both
+ * see it as new; callers route each id to a single thread.
+ */
+class WindowedBloomFilter {
+
+    private final int capacity;
+    private final long windowNanos;
+    private final int bits;
+    private final int hashes;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    WindowedBloomFilter(int capacity, double falsePositiveRate, long windowNanos) {
+        this.capacity = capacity;
+        this.windowNanos = windowNanos;
+        // Optimal sizing: m = -n ln(p) / ln(2)^2 bits, k = m/n ln(2) hash functions
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63L, Math.max(64, (optimalBits + 63) & ~63L));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+        this.current = new Generation(bits, System.nanoTime());
+        this.previous = new Generation(bits, System.nanoTime());
+    }
+
+    boolean mightContain(UUID id) {
+        long h1 = mix(id.getMostSignificantBits());
+        long h2 = mix(id.getLeastSignificantBits()) | 1;
+        return current.contains(h1, h2) || previous.contains(h1, h2);
+    }
+
+    void add(UUID id) {
+        Generation generation = current;
+        if (generation.count.get() >= capacity || System.nanoTime() - generation.startNanos > windowNanos) {
+            generation = rotate(generation);
+        }
+        long h1 = mix(id.getMostSignificantBits());
+        long h2 = mix(id.getLeastSignificantBits()) | 1;
+        generation.add(h1, h2);
+    }
+
+    /** Estimated probability that an id never added is reported as present. */
+    double falsePositiveRate() {
+        return 1 - (1 - generationRate(current)) * (1 - generationRate(previous));
+    }
+
+    long size() {
+        return current.count.get() + previous.count.get();
+    }
+
+    long memoryBytes() {
+        return 2L * bits / 8;
+    }
+
+    private synchronized Generation rotate(Generation full) {
+        if (current != full) {
+            // Another thread rotated first
+            return current;
+        }
+        previous = full;
+        current = new Generation(bits, System.nanoTime());
+        return current;
+    }
+
+    /** Maps the high 32 bits of a hash onto [0, bits) with a multiply instead of a division. */
+    private int index(long hash) {
+        return (int) (((hash >>> 32) * bits) >>> 32);
+    }
+
+    private double generationRate(Generation generation) {
+        double fill = 1 - Math.exp(-(double) hashes * generation.count.get() / bits);
+        return Math.pow(fill, hashes);
+    }
+
+    /** MurmurHash3 finalizer; spreads the fixed version and variant bits of random UUIDs. */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private final class Generation {
+
+        final AtomicLongArray words;
+        final AtomicLong count = new AtomicLong();
+        final long startNanos;
+
+        Generation(int bits, long startNanos) {
+            this.words = new AtomicLongArray(bits / 64);
+            this.startNanos = startNanos;
+        }
+
+        boolean contains(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(combined);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+                combined += h2;
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(combined);
+                long mask = 1L << bit;
+                int index = bit >>> 6;
+                long word = words.get(index);
+                while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                    word = words.get(index);
+                }
+                combined += h2;
+            }
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.otel.serviceb.memory;
+
+import com.example.otel.serviceb.compute.ComputeJob;
+import com.example.otel.serviceb.compute.ComputePool;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Builds and scans the {@code /memory/process} collection: {@code itemCount} entries mapping item
+ * {@code i} to a random UUID, then counts the values whose UUID ends in an even hex digit.
+ *
+ * <p>Backends:
+ * <ul>
+ *   <li>{@code hashmap}: {@code HashMap<String, String>} from {@code "key-" + i} to
+ *       {@code "value-" + uuid}, as before. Each entry is a node and two strings.</li>
+ *   <li>{@code primitive}: an open-addressing table over parallel {@code int}/{@code long} arrays
+ *       with linear probing; the key is {@code i} and the value the UUID's two longs.</li>
+ *   <li>{@code offheap}: the same table as 24-byte slots in one direct buffer, outside the heap
+ *       and invisible to the GC.</li>
+ * </ul>
+ *
+ * <p>Runs are submitted to the {@link ComputePool}; with {@code parallel} the scan is a parallel
+ * stream, which then splits across the same pool. Building checks the job's deadline every
+ * {@value #CHECKPOINT_ITEMS} items.
+ */
+@Component
+public class CollectionEngine {
+
+    public enum Backend {
+        HASHMAP, PRIMITIVE, OFFHEAP;
+
+        /** Case-insensitive lookup for request parameters. */
+        public static Optional<Backend> parse(String name) {
+            for (Backend backend : values()) {
+                if (backend.name().equalsIgnoreCase(name)) {
+                    return Optional.of(backend);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Outcome of one run. {@code retainedBytes} is what the collection holds once built: exact for
+     * the table backends, and for {@code hashmap} computed from the object layout of a 64-bit JVM
+     * with compressed oops and compact strings. {@code allocatedBytes} is what building allocated
+     * on the heap, or -1 where the JVM cannot count it.
+     */
+    public record Result(int items, long matched, long buildNanos, long scanNanos,
+                         long retainedBytes, long allocatedBytes) {
+
+        public double buildItemsPerSecond() {
+            return buildNanos > 0 ? items * 1e9 / buildNanos : 0;
+        }
+
+        public double scanItemsPerSecond() {
+            return scanNanos > 0 ? items * 1e9 / scanNanos : 0;
+        }
+
+        public double retainedBytesPerItem() {
+            return items > 0 ? (double) retainedBytes / items : 0;
+        }
+
+        public double allocatedBytesPerItem() {
+            return allocatedBytes >= 0 && items > 0 ? (double) allocatedBytes / items : -1;
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemorySupported() ? threads : null;
+
+    private static final int SLOT_BYTES = 24;
+    // Largest power-of-two array length; HashMap caps its table at the same size
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int CHECKPOINT_ITEMS = 1 << 16;
+
+    /**
+     * Checks that {@code backend} can hold {@code itemCount} items. Cheap enough to call on the
+     * request thread before the job is admitted.
+     *
+     * @throws IllegalArgumentException if the table would exceed the largest array, or for
+     *         {@code offheap} the largest buffer
+     */
+    public void validate(Backend backend, int itemCount) {
+        int maxItems = maxItems(backend);
+        if (itemCount > maxItems) {
+            throw new IllegalArgumentException(backend.name().toLowerCase() + " supports at most " + maxItems + " items");
+        }
+    }
+
+    /** Builds and scans the collection; call from a {@link ComputePool} job. */
+    public Result run(Backend backend, int itemCount, boolean parallel, ComputeJob job) {
+        validate(backend, itemCount);
+        int items = Math.max(itemCount, 0);
+        return switch (backend) {
+            case HASHMAP -> hashMap(items, parallel, job);
+            case PRIMITIVE -> primitive(items, parallel, job);
+            case OFFHEAP -> offHeap(items, parallel, job);
+        };
+    }
+
+    private static Result hashMap(int items, boolean parallel, ComputeJob job) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        Map<String, String> map = new HashMap<>();
+        long keyBytes = 0;
+        for (int i = 0; i < items; i++) {
+            if (i % CHECKPOINT_ITEMS == 0) {
+                job.checkpoint();
+            }
+            String key = "key-" + i;
+            map.put(key, "value-" + randomUuid());
+            keyBytes += stringBytes(key.length());
+        }
+        long built = System.nanoTime();
+        long allocated = allocatedSince(allocatedBefore);
+
+        var values = parallel ? map.values().parallelStream() : map.values().stream();
+        long matched = values
+            .filter(v -> Character.digit(v.charAt(v.length() - 1), 16) % 2 == 0)
+            .count();
+        long scanned = System.nanoTime();
+
+        // Table of references, one node per entry, a key string and a 42-character value string
+        long retained = align(16 + 4L * tableCapacity(items)) + 32L * items + keyBytes + items * stringBytes(42);
+        return new Result(items, matched, built - start, scanned - built, retained, allocated);
+    }
+
+    private static Result primitive(int items, boolean parallel, ComputeJob job) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int capacity = tableCapacity(items);
+        int mask = capacity - 1;
+        // Key + 1, so that 0 marks a free slot
+        int[] keys = new int[capacity];
+        long[] mostSignificant = new long[capacity];
+        long[] leastSignificant = new long[capacity];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < items; i++) {
+            if (i % CHECKPOINT_ITEMS == 0) {
+                job.checkpoint();
+            }
+            int slot = slot(i, mask);
+            while (keys[slot] != 0 && keys[slot] != i + 1) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = i + 1;
+            mostSignificant[slot] = mostSignificantBits(random);
+            leastSignificant[slot] = leastSignificantBits(random);
+        }
+        long built = System.nanoTime();
+        long allocated = allocatedSince(allocatedBefore);
+
+        IntStream slots = IntStream.range(0, capacity);
+        long matched = (parallel ? slots.parallel() : slots)
+            .filter(slot -> keys[slot] != 0 && (leastSignificant[slot] & 1) == 0)
+            .count();
+        long scanned = System.nanoTime();
+
+        long retained = align(16 + 4L * capacity) + 2 * (16 + 8L * capacity);
+        return new Result(items, matched, built - start, scanned - built, retained, allocated);
+    }
+
+    private static Result offHeap(int items, boolean parallel, ComputeJob job) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int capacity = tableCapacity(items);
+        int mask = capacity - 1;
+        // Slot: key + 1 (int, 0 = free), padding, most and least significant UUID bits
+        ByteBuffer table = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < items; i++) {
+            if (i % CHECKPOINT_ITEMS == 0) {
+                job.checkpoint();
+            }
+            int slot = slot(i, mask);
+            while (table.getInt(slot * SLOT_BYTES) != 0 && table.getInt(slot * SLOT_BYTES) != i + 1) {
+                slot = (slot + 1) & mask;
+            }
+            int offset = slot * SLOT_BYTES;
+            table.putInt(offset, i + 1);
+            table.putLong(offset + 8, mostSignificantBits(random));
+            table.putLong(offset + 16, leastSignificantBits(random));
+        }
+        long built = System.nanoTime();
+        long allocated = allocatedSince(allocatedBefore);
+
+        IntStream slots = IntStream.range(0, capacity);
+        long matched = (parallel ? slots.parallel() : slots)
+            .filter(slot -> table.getInt(slot * SLOT_BYTES) != 0 && (table.getLong(slot * SLOT_BYTES + 16) & 1) == 0)
+            .count();
+        long scanned = System.nanoTime();
+
+        return new Result(items, matched, built - start, scanned - built, (long) capacity * SLOT_BYTES, allocated);
+    }
+
+    /**
+     * Random version 4 UUID. Cheaper than {@link UUID#randomUUID()}, which draws from SecureRandom
+     * and would dominate the build time of every backend.
+     */
+    private static UUID randomUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(mostSignificantBits(random), leastSignificantBits(random));
+    }
+
+    private static long mostSignificantBits(ThreadLocalRandom random) {
+        return random.nextLong() & ~0xF000L | 0x4000L;
+    }
+
+    private static long leastSignificantBits(ThreadLocalRandom random) {
+        return random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+    }
+
+    /**
+     * Power-of-two slot count keeping the load factor at or below 0.75, up to
+     * {@link #MAX_CAPACITY}; {@link #validate} keeps item counts within that.
+     */
+    private static int tableCapacity(int items) {
+        int capacity = 16;
+        while (capacity < MAX_CAPACITY && items > capacity * 3L / 4) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static int maxItems(Backend backend) {
+        int capacity = backend == Backend.OFFHEAP
+            ? Integer.highestOneBit(Integer.MAX_VALUE / SLOT_BYTES)
+            : MAX_CAPACITY;
+        return (int) (capacity * 3L / 4);
+    }
+
+    private static int slot(int key, int mask) {
+        // Fibonacci hashing, high bits folded down, spreads consecutive keys across the table
+        int hash = key * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    private static long stringBytes(int latin1Length) {
+        return 24 + align(16 + latin1Length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null && THREADS.isThreadAllocatedMemoryEnabled()
+            ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static long allocatedSince(long before) {
+        return before < 0 ? -1 : allocatedBytes() - before;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.otel.serviceb.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding one {@code service-events} payload: the binary codec against the JSON
+ * payloads it replaced, the original {@code String.format} one and the Jackson map that followed.
+ * Run with {@code -prof gc} for the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceEventCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ServiceEvent event;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        event = new ServiceEvent(UUID.randomUUID(), System.currentTimeMillis(), "service-a", "order 12345 shipped");
+        binary = ServiceEventCodec.encode(event);
+        json = ServiceEventCodec.toJson(event).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeStringFormat() {
+        return String.format("{\"messageId\":\"%s\",\"message\":\"%s\",\"timestamp\":%d,\"source\":\"service-a\"}",
+            event.messageId(), event.message(), event.timestamp()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeJacksonMap() throws JsonProcessingException {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("messageId", event.messageId().toString());
+        payload.put("message", event.message());
+        payload.put("timestamp", event.timestamp());
+        payload.put("source", event.source());
+        return objectMapper.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return ServiceEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public ServiceEvent decodeJson() {
+        return ServiceEventCodec.decode(json);
+    }
+
+    @Benchmark
+    public ServiceEvent decodeBinary() {
+        return ServiceEventCodec.decode(binary);
+    }
+}
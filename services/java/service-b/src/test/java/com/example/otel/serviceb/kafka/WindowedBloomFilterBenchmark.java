@@ -0,0 +1,74 @@
+package com.example.otel.serviceb.kafka;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and inserts of random UUIDs in a {@link WindowedBloomFilter} sized for {@code ids} ids
+ * at a false-positive rate of 1e-6 and filled with that many. Once the filter no longer fits in
+ * the CPU caches, each probe is a cache miss, which is what separates the two sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class WindowedBloomFilterBenchmark {
+
+    private static final int SAMPLES = 1 << 16;
+
+    @Param({"1000000", "10000000"})
+    private int ids;
+
+    private WindowedBloomFilter filter;
+    private final UUID[] present = new UUID[SAMPLES];
+    private final UUID[] absent = new UUID[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        filter = new WindowedBloomFilter(ids, 1e-6, TimeUnit.HOURS.toNanos(1));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Fill the previous generation, then the current one, as a running consumer would
+        for (int i = 0; i < 2 * ids; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            filter.add(id);
+            if (i >= 2 * ids - SAMPLES) {
+                present[i - (2 * ids - SAMPLES)] = id;
+            }
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            absent[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        System.out.printf("%n%d ids per generation: %.1f MB for both generations%n", ids, filter.memoryBytes() / 1e6);
+    }
+
+    @Benchmark
+    public boolean lookupPresent() {
+        return filter.mightContain(present[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public boolean lookupAbsent() {
+        return filter.mightContain(absent[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public void add() {
+        filter.add(absent[next++ & (SAMPLES - 1)]);
+    }
+}
@@ -1,21 +1,52 @@
 package com.example.otel.servicec;
 
+import com.example.otel.servicec.cache.EntityCache;
+import com.example.otel.servicec.compute.ComputePool;
+import com.example.otel.servicec.compute.ComputeRejectedException;
+import com.example.otel.servicec.compute.HashEngine;
+import com.example.otel.servicec.compute.PrimeEngine;
+import com.example.otel.servicec.memory.CollectionEngine;
+import com.example.otel.servicec.memory.MemoryAllocator;
+import com.example.otel.servicec.slow.SlowQuerySimulator;
 import com.example.otel.servicec.entity.Order;
 import com.example.otel.servicec.entity.User;
+import com.example.otel.servicec.ingest.BulkOrderIngestor;
+import com.example.otel.servicec.ingest.CopyIngestor;
+import com.example.otel.servicec.ingest.IngestException;
+import com.example.otel.servicec.ingest.IngestResult;
+import com.example.otel.servicec.projection.OrderView;
+import com.example.otel.servicec.projection.UserView;
 import com.example.otel.servicec.repository.OrderRepository;
 import com.example.otel.servicec.repository.UserRepository;
+import com.example.otel.servicec.stream.NdjsonExporter;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -26,15 +57,35 @@ public class DataController {
     private final Random random = new Random();
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
+    private final EntityCache entityCache;
+
+    private final NdjsonExporter ndjsonExporter;
+    private final BulkOrderIngestor bulkOrderIngestor;
+    private final CopyIngestor copyIngestor;
+
+    @Value("${data.batch.max-size:500}")
+    private int maxBatchSize;
+
+    @Value("${data.ingest.batch-size:1000}")
+    private int ingestBatchSize;
+
+    @Value("${data.ingest.max-batch-size:10000}")
+    private int maxIngestBatchSize;
+
+    @Value("${data.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${data.page.max-size:1000}")
+    private int maxPageSize;
 
     @GetMapping("/user/{userId}")
     public ResponseEntity<Map<String, Object>> getUserData(@PathVariable String userId) {
         log.info("Service C: Fetching user data for userId: {}", userId);
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             Long id = Long.parseLong(userId);
-            User user = userRepository.findById(id).orElse(null);
+            UserView user = entityCache.getUser(id).orElse(null);
 
             if (user == null) {
                 log.warn("Service C: User not found for userId: {}", userId);
@@ -45,15 +96,9 @@ public class DataController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
             }
 
-            long queryTime = System.currentTimeMillis() - startTime;
-            Map<String, Object> response = new HashMap<>();
+            long queryTime = (System.nanoTime() - startTime) / 1_000_000;
+            Map<String, Object> response = userData(user);
             response.put("service", "service-c");
-            response.put("userId", user.getId());
-            response.put("username", user.getUsername());
-            response.put("email", user.getEmail());
-            response.put("status", user.getStatus());
-            response.put("createdAt", user.getCreatedAt().toString());
-            response.put("updatedAt", user.getUpdatedAt().toString());
             response.put("queryTime", queryTime);
             response.put("timestamp", System.currentTimeMillis());
 
@@ -72,11 +117,11 @@ public class DataController {
     @GetMapping("/order/{orderId}")
     public ResponseEntity<Map<String, Object>> getOrderData(@PathVariable String orderId) {
         log.info("Service C: Fetching order data for orderId: {}", orderId);
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             Long id = Long.parseLong(orderId);
-            Order order = orderRepository.findById(id).orElse(null);
+            OrderView order = entityCache.getOrder(id).orElse(null);
 
             if (order == null) {
                 log.warn("Service C: Order not found for orderId: {}", orderId);
@@ -87,17 +132,9 @@ public class DataController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
             }
 
-            long queryTime = System.currentTimeMillis() - startTime;
-            Map<String, Object> response = new HashMap<>();
+            long queryTime = (System.nanoTime() - startTime) / 1_000_000;
+            Map<String, Object> response = orderData(order);
             response.put("service", "service-c");
-            response.put("orderId", order.getId());
-            response.put("orderNumber", order.getOrderNumber());
-            response.put("userId", order.getUserId());
-            response.put("amount", order.getAmount());
-            response.put("status", order.getStatus());
-            response.put("items", order.getItemsCount());
-            response.put("createdAt", order.getCreatedAt().toString());
-            response.put("updatedAt", order.getUpdatedAt().toString());
             response.put("queryTime", queryTime);
             response.put("timestamp", System.currentTimeMillis());
 
@@ -113,6 +150,83 @@ public class DataController {
         }
     }
 
+    // Batch lookups: cached ids are served from memory, the rest with one query
+    @GetMapping(value = "/users", params = "ids")
+    public ResponseEntity<Map<String, Object>> getUsersData(@RequestParam List<String> ids) {
+        log.info("Service C: Fetching user data for {} userIds", ids.size());
+        long startTime = System.nanoTime();
+
+        ResponseEntity<Map<String, Object>> invalid = validateBatch(ids, "userIds");
+        if (invalid != null) {
+            return invalid;
+        }
+
+        Set<Long> requestedIds = parseIds(ids);
+        Map<Long, UserView> usersById = entityCache.getUsers(requestedIds);
+
+        List<Map<String, Object>> users = new ArrayList<>(usersById.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            UserView user = usersById.get(id);
+            if (user == null) {
+                missingIds.add(id);
+            } else {
+                users.add(userData(user));
+            }
+        }
+
+        long queryTime = (System.nanoTime() - startTime) / 1_000_000;
+        Map<String, Object> response = new HashMap<>();
+        response.put("service", "service-c");
+        response.put("users", users);
+        response.put("count", users.size());
+        response.put("missingIds", missingIds);
+        response.put("queryTime", queryTime);
+        response.put("timestamp", System.currentTimeMillis());
+
+        log.info("Service C: Completed batch user fetch of {} ids ({} missing) in {}ms",
+            requestedIds.size(), missingIds.size(), queryTime);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/orders", params = "ids")
+    public ResponseEntity<Map<String, Object>> getOrdersData(@RequestParam List<String> ids) {
+        log.info("Service C: Fetching order data for {} orderIds", ids.size());
+        long startTime = System.nanoTime();
+
+        ResponseEntity<Map<String, Object>> invalid = validateBatch(ids, "orderIds");
+        if (invalid != null) {
+            return invalid;
+        }
+
+        Set<Long> requestedIds = parseIds(ids);
+        Map<Long, OrderView> ordersById = entityCache.getOrders(requestedIds);
+
+        List<Map<String, Object>> orders = new ArrayList<>(ordersById.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            OrderView order = ordersById.get(id);
+            if (order == null) {
+                missingIds.add(id);
+            } else {
+                orders.add(orderData(order));
+            }
+        }
+
+        long queryTime = (System.nanoTime() - startTime) / 1_000_000;
+        Map<String, Object> response = new HashMap<>();
+        response.put("service", "service-c");
+        response.put("orders", orders);
+        response.put("count", orders.size());
+        response.put("missingIds", missingIds);
+        response.put("queryTime", queryTime);
+        response.put("timestamp", System.currentTimeMillis());
+
+        log.info("Service C: Completed batch order fetch of {} ids ({} missing) in {}ms",
+            requestedIds.size(), missingIds.size(), queryTime);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/health")
     public Map<String, String> health() {
         Map<String, String> response = new HashMap<>();
@@ -125,7 +239,7 @@ public class DataController {
     @PostMapping("/user")
     public ResponseEntity<Map<String, Object>> createUser(@RequestBody Map<String, String> userRequest) {
         log.info("Service C: Creating new user");
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             String username = userRequest.get("username");
@@ -145,7 +259,8 @@ public class DataController {
             user.setStatus(status);
 
             User savedUser = userRepository.save(user);
-            long queryTime = System.currentTimeMillis() - startTime;
+            entityCache.putUser(UserView.from(savedUser));
+            long queryTime = (System.nanoTime() - startTime) / 1_000_000;
 
             Map<String, Object> response = new HashMap<>();
             response.put("service", "service-c");
@@ -171,7 +286,7 @@ public class DataController {
     @PostMapping("/order")
     public ResponseEntity<Map<String, Object>> createOrder(@RequestBody Map<String, Object> orderRequest) {
         log.info("Service C: Creating new order");
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             String orderNumber = (String) orderRequest.get("orderNumber");
@@ -198,7 +313,8 @@ public class DataController {
             order.setItemsCount(itemsCount);
 
             Order savedOrder = orderRepository.save(order);
-            long queryTime = System.currentTimeMillis() - startTime;
+            entityCache.putOrder(OrderView.from(savedOrder));
+            long queryTime = (System.nanoTime() - startTime) / 1_000_000;
 
             Map<String, Object> response = new HashMap<>();
             response.put("service", "service-c");
@@ -223,19 +339,63 @@ public class DataController {
         }
     }
 
+    // Bulk load: JSON array or NDJSON body, written in batches of batchSize rows.
+    // mode=single keeps the one-row-per-save path for comparison.
+    @PostMapping(value = "/orders/bulk",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Map<String, Object>> bulkCreateOrders(InputStream body,
+                                                                @RequestParam(defaultValue = "batch") String mode,
+                                                                @RequestParam(required = false) Integer batchSize) {
+        BulkOrderIngestor.Mode ingestMode;
+        try {
+            ingestMode = BulkOrderIngestor.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "mode must be batch or single");
+            errorResponse.put("service", "service-c");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        // Capped, since one batch is held in memory
+        int size = batchSize != null && batchSize > 0 ? Math.min(batchSize, maxIngestBatchSize) : ingestBatchSize;
+        log.info("Service C: Bulk loading orders (mode {}, batch size {})", ingestMode, size);
+
+        return ingestResponse(() -> bulkOrderIngestor.ingest(body, ingestMode, size));
+    }
+
+    // COPY fast path: CSV rows are validated and streamed straight into the table.
+    // Orders: order_number,user_id,amount,status,items_count  Users: username,email,status
+    @PostMapping(value = "/orders/copy", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> copyOrders(InputStream body,
+                                                          @RequestParam(defaultValue = "false") boolean header) {
+        log.info("Service C: Loading orders with COPY");
+        return ingestResponse(() -> copyIngestor.copyOrders(body, header));
+    }
+
+    @PostMapping(value = "/users/copy", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> copyUsers(InputStream body,
+                                                         @RequestParam(defaultValue = "false") boolean header) {
+        log.info("Service C: Loading users with COPY");
+        return ingestResponse(() -> copyIngestor.copyUsers(body, header));
+    }
+
     // Additional useful endpoints
+    // Keyset pagination: pass the returned nextCursor as afterId to fetch the next page
     @GetMapping("/users")
-    public ResponseEntity<Map<String, Object>> getAllUsers() {
-        log.info("Service C: Fetching all users");
-        long startTime = System.currentTimeMillis();
+    public ResponseEntity<Map<String, Object>> getAllUsers(@RequestParam(defaultValue = "0") long afterId,
+                                                           @RequestParam(required = false) Integer limit) {
+        int pageSize = pageSize(limit);
+        log.info("Service C: Fetching users after id {} (limit {})", afterId, pageSize);
+        long startTime = System.nanoTime();
 
-        List<User> users = userRepository.findAll();
-        long queryTime = System.currentTimeMillis() - startTime;
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize));
+        long queryTime = (System.nanoTime() - startTime) / 1_000_000;
 
         Map<String, Object> response = new HashMap<>();
         response.put("service", "service-c");
         response.put("users", users);
         response.put("count", users.size());
+        response.put("limit", pageSize);
+        response.put("nextCursor", users.size() < pageSize ? null : users.get(users.size() - 1).getId());
         response.put("queryTime", queryTime);
         response.put("timestamp", System.currentTimeMillis());
 
@@ -244,17 +404,21 @@ public class DataController {
     }
 
     @GetMapping("/orders")
-    public ResponseEntity<Map<String, Object>> getAllOrders() {
-        log.info("Service C: Fetching all orders");
-        long startTime = System.currentTimeMillis();
+    public ResponseEntity<Map<String, Object>> getAllOrders(@RequestParam(defaultValue = "0") long afterId,
+                                                            @RequestParam(required = false) Integer limit) {
+        int pageSize = pageSize(limit);
+        log.info("Service C: Fetching orders after id {} (limit {})", afterId, pageSize);
+        long startTime = System.nanoTime();
 
-        List<Order> orders = orderRepository.findAll();
-        long queryTime = System.currentTimeMillis() - startTime;
+        List<Order> orders = orderRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize));
+        long queryTime = (System.nanoTime() - startTime) / 1_000_000;
 
         Map<String, Object> response = new HashMap<>();
         response.put("service", "service-c");
         response.put("orders", orders);
         response.put("count", orders.size());
+        response.put("limit", pageSize);
+        response.put("nextCursor", orders.size() < pageSize ? null : orders.get(orders.size() - 1).getId());
         response.put("queryTime", queryTime);
         response.put("timestamp", System.currentTimeMillis());
 
@@ -262,15 +426,40 @@ public class DataController {
         return ResponseEntity.ok(response);
     }
 
+    // Streaming export: one JSON object per line, read through a database cursor
+    @GetMapping(value = "/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(defaultValue = "0") long afterId) {
+        log.info("Service C: Streaming users after id {}", afterId);
+
+        StreamingResponseBody body = out -> {
+            long startTime = System.nanoTime();
+            long rows = ndjsonExporter.streamUsers(afterId, out);
+            log.info("Service C: Streamed {} users in {}ms", rows, (System.nanoTime() - startTime) / 1_000_000);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping(value = "/orders/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrders(@RequestParam(defaultValue = "0") long afterId) {
+        log.info("Service C: Streaming orders after id {}", afterId);
+
+        StreamingResponseBody body = out -> {
+            long startTime = System.nanoTime();
+            long rows = ndjsonExporter.streamOrders(afterId, out);
+            log.info("Service C: Streamed {} orders in {}ms", rows, (System.nanoTime() - startTime) / 1_000_000);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/user/{userId}/orders")
     public ResponseEntity<Map<String, Object>> getUserOrders(@PathVariable String userId) {
         log.info("Service C: Fetching orders for userId: {}", userId);
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             Long id = Long.parseLong(userId);
             List<Order> orders = orderRepository.findByUserId(id);
-            long queryTime = System.currentTimeMillis() - startTime;
+            long queryTime = (System.nanoTime() - startTime) / 1_000_000;
 
             Map<String, Object> response = new HashMap<>();
             response.put("service", "service-c");
@@ -291,14 +480,116 @@ public class DataController {
             return ResponseEntity.badRequest().body(errorResponse);
         }
     }
+
+    private ResponseEntity<Map<String, Object>> validateBatch(List<String> ids, String field) {
+        String error = null;
+        if (ids.isEmpty()) {
+            error = "At least one id is required";
+        } else if (ids.size() > maxBatchSize) {
+            error = "Too many ids, maximum is " + maxBatchSize;
+        } else {
+            for (String id : ids) {
+                try {
+                    Long.parseLong(id.trim());
+                } catch (NumberFormatException e) {
+                    error = "Invalid id format: " + id;
+                    break;
+                }
+            }
+        }
+        if (error == null) {
+            return null;
+        }
+
+        log.error("Service C: Invalid batch request: {}", error);
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", error);
+        errorResponse.put(field, ids);
+        errorResponse.put("service", "service-c");
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    private ResponseEntity<Map<String, Object>> ingestResponse(Supplier<IngestResult> load) {
+        try {
+            IngestResult result = load.get();
+            log.info("Service C: Loaded {} {} via {} in {}ms ({} rows/s)", result.rows(), result.table(),
+                result.method(), result.durationNanos() / 1_000_000, Math.round(result.rowsPerSecond()));
+            return ResponseEntity.status(HttpStatus.CREATED).body(result.toResponse());
+        } catch (IngestException e) {
+            log.error("Service C: Load failed after {} rows", e.getRowsInserted(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Load failed: " + e.getMessage());
+            errorResponse.put("rowsInserted", e.getRowsInserted());
+            errorResponse.put("service", "service-c");
+            boolean badInput = e.getCause() instanceof IllegalArgumentException
+                || e.getCause() instanceof JsonProcessingException;
+            return ResponseEntity.status(badInput ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(errorResponse);
+        }
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private Set<Long> parseIds(List<String> ids) {
+        Set<Long> parsed = new LinkedHashSet<>();
+        for (String id : ids) {
+            parsed.add(Long.parseLong(id.trim()));
+        }
+        return parsed;
+    }
+
+    private Map<String, Object> userData(UserView user) {
+        // Sized for the fields below plus service/queryTime/timestamp
+        Map<String, Object> data = new HashMap<>(16);
+        data.put("userId", user.id());
+        data.put("username", user.username());
+        data.put("email", user.email());
+        data.put("status", user.status());
+        data.put("createdAt", user.createdAt().toString());
+        data.put("updatedAt", user.updatedAt().toString());
+        return data;
+    }
+
+    private Map<String, Object> orderData(OrderView order) {
+        // Sized for the fields below plus service/queryTime/timestamp
+        Map<String, Object> data = new HashMap<>(16);
+        data.put("orderId", order.id());
+        data.put("orderNumber", order.orderNumber());
+        data.put("userId", order.userId());
+        data.put("amount", order.amount());
+        data.put("status", order.status());
+        data.put("items", order.itemsCount());
+        data.put("createdAt", order.createdAt().toString());
+        data.put("updatedAt", order.updatedAt().toString());
+        return data;
+    }
 }
 
 // Additional controller for non-data endpoints
 @Slf4j
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 class ServiceController {
 
+    private final ComputePool computePool;
+    private final PrimeEngine primeEngine;
+    private final HashEngine hashEngine;
+    private final MemoryAllocator memoryAllocator;
+    private final CollectionEngine collectionEngine;
+    private final SlowQuerySimulator slowQuerySimulator;
+
+    @Value("${compute.hash.max-chains:64}")
+    private int maxHashChains;
+
+    @Value("${memory.allocate.max-hold:10m}")
+    private Duration maxAllocateHold;
+
     @GetMapping("/hello")
     public Map<String, Object> hello() {
         log.info("Service C: Received request at /api/hello");
@@ -312,152 +603,287 @@ class ServiceController {
     }
 
     // CPU-intensive endpoint: Prime number calculation
+    // algorithm=sieve (default): segmented parallel sieve with cached segment counts
+    // algorithm=trial: the original trial division, for comparison
+    // Runs through the compute pool's admission control; timeoutMs shortens the deadline
     @GetMapping("/compute/primes/{limit}")
-    public Map<String, Object> computePrimes(@PathVariable int limit) {
-        log.info("Service C: Computing primes up to {}", limit);
-        long startTime = System.currentTimeMillis();
-
-        List<Integer> primes = new ArrayList<>();
-        for (int num = 2; num <= limit; num++) {
-            if (isPrime(num)) {
-                primes.add(num);
-            }
+    public DeferredResult<ResponseEntity<Map<String, Object>>> computePrimes(@PathVariable int limit,
+                                                                             @RequestParam(defaultValue = "sieve") String algorithm,
+                                                                             @RequestParam(required = false) Long timeoutMs) {
+        PrimeEngine.Algorithm selected = PrimeEngine.Algorithm.parse(algorithm).orElse(null);
+        if (selected == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("service", "service-c");
+            error.put("error", "algorithm must be sieve or trial");
+            error.put("algorithm", algorithm);
+            error.put("timestamp", System.currentTimeMillis());
+            return completed(ResponseEntity.badRequest().body(error));
+        }
+        if (limit < 0) {
+            return completed(badRequest("limit must not be negative"));
         }
 
-        long duration = System.currentTimeMillis() - startTime;
+        log.info("Service C: Computing primes up to {} with {}", limit, selected);
+        long startTime = System.nanoTime();
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "service-c");
-        response.put("operation", "prime-calculation");
-        response.put("limit", limit);
-        response.put("primesFound", primes.size());
-        response.put("durationMs", duration);
-        response.put("timestamp", System.currentTimeMillis());
+        return compute("primes", timeoutMs, job -> {
+            PrimeEngine.Result result = primeEngine.count(limit, selected, job);
 
-        log.info("Service C: Found {} primes in {}ms", primes.size(), duration);
-        return response;
+            long duration = (System.nanoTime() - startTime) / 1_000_000;
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("service", "service-c");
+            response.put("operation", "prime-calculation");
+            response.put("algorithm", selected.name().toLowerCase());
+            response.put("limit", limit);
+            response.put("primesFound", result.count());
+            if (selected == PrimeEngine.Algorithm.SIEVE) {
+                response.put("segments", result.segments());
+                response.put("cachedSegments", result.cachedSegments());
+                response.put("parallelism", primeEngine.parallelism());
+            }
+            response.put("durationMs", duration);
+            response.put("timestamp", System.currentTimeMillis());
+
+            log.info("Service C: Found {} primes in {}ms", result.count(), duration);
+            return ResponseEntity.ok(response);
+        });
     }
 
-    // CPU-intensive endpoint: Hash computation
-    @GetMapping("/compute/hash/{iterations}")
-    public Map<String, Object> computeHash(@PathVariable int iterations) {
-        log.info("Service C: Computing hash with {} iterations", iterations);
-        long startTime = System.currentTimeMillis();
+    // Streams the primes in [from, to], one per line, without holding them in memory
+    // Runs as a compute pool job like /compute/primes/{limit}: a full queue is rejected with 503 before
+    // anything is written. The sieve stops within a segment once the deadline passes, ending the
+    // stream with an error line, or once the client goes away
+    @GetMapping(value = "/compute/primes/range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamPrimes(@RequestParam(defaultValue = "2") int from,
+                                                            @RequestParam int to,
+                                                            @RequestParam(required = false) Long timeoutMs) {
+        if (to < from) {
+            return emitted(badRequest("to must not be less than from"));
+        }
+        if (timeoutMs != null && timeoutMs <= 0) {
+            return emitted(badRequest("timeoutMs must be positive"));
+        }
+        log.info("Service C: Streaming primes from {} to {}", from, to);
+        long startTime = System.nanoTime();
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
 
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                emitter.send(Arrays.copyOfRange(b, off, off + len), MediaType.APPLICATION_NDJSON);
+            }
+        };
+        CompletableFuture<Long> future;
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            String data = "ServiceC-" + System.currentTimeMillis();
+            future = computePool.submit("primes-stream", timeoutMs == null ? null : Duration.ofMillis(timeoutMs),
+                job -> primeEngine.stream(from, to, out, job));
+        } catch (ComputeRejectedException e) {
+            log.warn("Service C: Rejected primes-stream request: {}", e.getMessage());
+            return emitted(unavailable(e.getMessage()));
+        }
 
-            for (int i = 0; i < iterations; i++) {
-                byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-                data = Base64.getEncoder().encodeToString(hash);
+        emitter.onTimeout(() -> future.cancel(false));
+        emitter.onError(error -> future.cancel(false));
+        future.whenComplete((primes, error) -> {
+            if (error == null) {
+                log.info("Service C: Streamed {} primes in {}ms", primes, (System.nanoTime() - startTime) / 1_000_000);
+                emitter.complete();
+            } else if (error instanceof TimeoutException) {
+                log.warn("Service C: Primes stream from {} to {} exceeded its deadline", from, to);
+                try {
+                    emitter.send("{\"error\":\"primes-stream request exceeded its deadline\"}\n", MediaType.APPLICATION_NDJSON);
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(error);
+                }
+            } else if (!(error instanceof CancellationException)) {
+                emitter.completeWithError(error);
             }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
 
-            long duration = System.currentTimeMillis() - startTime;
+    // CPU-intensive endpoint: Hash computation
+    // mode=reuse (default): digest and Base64 into reused buffers; mode=allocating: the original loop
+    // chains=N runs N independent chains in parallel on the compute pool
+    // Runs through the compute pool's admission control; timeoutMs shortens the deadline
+    @GetMapping("/compute/hash/{iterations}")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> computeHash(@PathVariable int iterations,
+                                                                           @RequestParam(defaultValue = "SHA-256") String algorithm,
+                                                                           @RequestParam(defaultValue = "reuse") String mode,
+                                                                           @RequestParam(defaultValue = "1") int chains,
+                                                                           @RequestParam(required = false) Long timeoutMs) {
+        HashEngine.Mode selected = HashEngine.Mode.parse(mode).orElse(null);
+        if (selected == null) {
+            return completed(badRequest("mode must be reuse or allocating"));
+        }
+        if (chains < 1 || chains > maxHashChains) {
+            return completed(badRequest("chains must be between 1 and " + maxHashChains));
+        }
+
+        log.info("Service C: Computing hash with {} iterations, {} {} chains in {} mode",
+            iterations, chains, algorithm, selected);
+        return compute("hash", timeoutMs, job -> {
+            HashEngine.Result result;
+            try {
+                result = hashEngine.run(algorithm, selected, iterations, chains,
+                    "ServiceC-" + System.currentTimeMillis(), job);
+            } catch (NoSuchAlgorithmException e) {
+                return badRequest("unknown algorithm " + algorithm);
+            }
+            long duration = TimeUnit.NANOSECONDS.toMillis(result.durationNanos());
 
             Map<String, Object> response = new HashMap<>();
             response.put("service", "service-c");
             response.put("operation", "hash-computation");
+            response.put("algorithm", algorithm);
+            response.put("mode", selected.name().toLowerCase());
             response.put("iterations", iterations);
-            response.put("finalHash", data.substring(0, 32));
+            response.put("chains", chains);
+            response.put("finalHash", result.finalHash());
+            response.put("hashesPerSecond", Math.round(result.hashesPerSecond()));
+            response.put("allocatedBytesPerHash", result.allocatedBytesPerHash());
             response.put("durationMs", duration);
             response.put("timestamp", System.currentTimeMillis());
 
             log.info("Service C: Hash computation completed in {}ms", duration);
-            return response;
-        } catch (Exception e) {
-            log.error("Service C: Hash computation failed", e);
-            throw new RuntimeException("Hash computation failed", e);
-        }
+            return ResponseEntity.ok(response);
+        });
     }
 
     // Memory-intensive endpoint: Large data structure creation
+    // mode=heap (default): byte[] chunks; direct: direct ByteBuffers; segment: native memory from an
+    // Arena; mapped: a memory-mapped temp file. holdMs keeps the memory allocated before release
     @GetMapping("/memory/allocate/{sizeMb}")
-    public Map<String, Object> allocateMemory(@PathVariable int sizeMb) {
-        log.info("Service C: Allocating {}MB of memory", sizeMb);
-        long startTime = System.currentTimeMillis();
-
-        List<byte[]> dataList = new ArrayList<>();
-        int chunks = sizeMb;
-
-        for (int i = 0; i < chunks; i++) {
-            byte[] chunk = new byte[1024 * 1024]; // 1MB
-            ThreadLocalRandom.current().nextBytes(chunk);
-            dataList.add(chunk);
+    public ResponseEntity<Map<String, Object>> allocateMemory(@PathVariable int sizeMb,
+                                                              @RequestParam(defaultValue = "heap") String mode,
+                                                              @RequestParam(defaultValue = "0") long holdMs) {
+        MemoryAllocator.Mode selected = MemoryAllocator.Mode.parse(mode).orElse(null);
+        if (selected == null) {
+            return badRequest("mode must be heap, direct, segment or mapped");
+        }
+        if (selected == MemoryAllocator.Mode.SEGMENT && !MemoryAllocator.segmentsSupported()) {
+            return badRequest("segment mode needs java.lang.foreign, which this JDK does not have");
+        }
+        if (holdMs < 0 || holdMs > maxAllocateHold.toMillis()) {
+            return badRequest("holdMs must be between 0 and " + maxAllocateHold.toMillis());
         }
 
-        long duration = System.currentTimeMillis() - startTime;
+        log.info("Service C: Allocating {}MB of {} memory, held for {}ms", sizeMb, selected, holdMs);
+        MemoryAllocator.Result result;
+        try {
+            result = memoryAllocator.allocate(selected, sizeMb, holdMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Service C: Allocation interrupted", e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("service", "service-c");
         response.put("operation", "memory-allocation");
+        response.put("mode", selected.name().toLowerCase());
         response.put("allocatedMb", sizeMb);
-        response.put("chunksCreated", dataList.size());
-        response.put("durationMs", duration);
+        response.put("chunksCreated", result.chunks());
+        response.put("heldMs", result.heldMs());
+        response.put("durationMs", result.durationMs());
+        response.put("memoryBefore", result.before().toMap());
+        response.put("memoryAllocated", result.allocated().toMap());
+        response.put("memoryAfter", result.after().toMap());
         response.put("timestamp", System.currentTimeMillis());
 
-        dataList.clear();
-
-        log.info("Service C: Allocated {}MB in {}ms", sizeMb, duration);
-        return response;
+        if (result.error() != null) {
+            // Ran out of heap, direct memory or disk before the requested size
+            response.put("error", result.error());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        log.info("Service C: Allocated {}MB in {}ms", sizeMb, result.durationMs());
+        return ResponseEntity.ok(response);
     }
 
     // Memory-intensive endpoint: Large collection processing
+    // backend=hashmap (default): HashMap of Strings; primitive: open-addressing int/long arrays;
+    // offheap: the same table in a direct buffer. parallel=true scans with a parallel stream
+    // Runs through the compute pool's admission control; timeoutMs shortens the deadline
     @GetMapping("/memory/process/{itemCount}")
-    public Map<String, Object> processLargeCollection(@PathVariable int itemCount) {
-        log.info("Service C: Processing {} items", itemCount);
-        long startTime = System.currentTimeMillis();
-
-        Map<String, String> largeMap = new HashMap<>();
-        for (int i = 0; i < itemCount; i++) {
-            largeMap.put("key-" + i, "value-" + UUID.randomUUID().toString());
+    public DeferredResult<ResponseEntity<Map<String, Object>>> processLargeCollection(@PathVariable int itemCount,
+                                                                                      @RequestParam(defaultValue = "hashmap") String backend,
+                                                                                      @RequestParam(defaultValue = "false") boolean parallel,
+                                                                                      @RequestParam(required = false) Long timeoutMs) {
+        CollectionEngine.Backend selected = CollectionEngine.Backend.parse(backend).orElse(null);
+        if (selected == null) {
+            return completed(badRequest("backend must be hashmap, primitive or offheap"));
+        }
+        try {
+            collectionEngine.validate(selected, itemCount);
+        } catch (IllegalArgumentException e) {
+            return completed(badRequest(e.getMessage()));
         }
 
-        long count = largeMap.values().stream()
-            .filter(v -> v.contains("-"))
-            .count();
-
-        long duration = System.currentTimeMillis() - startTime;
+        log.info("Service C: Processing {} items with {} backend, parallel={}", itemCount, selected, parallel);
+        return compute("collection", timeoutMs, job -> {
+            CollectionEngine.Result result = collectionEngine.run(selected, itemCount, parallel, job);
+            long duration = TimeUnit.NANOSECONDS.toMillis(result.buildNanos() + result.scanNanos());
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "service-c");
-        response.put("operation", "collection-processing");
-        response.put("itemsProcessed", itemCount);
-        response.put("matchedItems", count);
-        response.put("durationMs", duration);
-        response.put("timestamp", System.currentTimeMillis());
-
-        largeMap.clear();
+            Map<String, Object> response = new HashMap<>();
+            response.put("service", "service-c");
+            response.put("operation", "collection-processing");
+            response.put("backend", selected.name().toLowerCase());
+            response.put("parallel", parallel);
+            response.put("itemsProcessed", itemCount);
+            response.put("matchedItems", result.matched());
+            response.put("buildMs", TimeUnit.NANOSECONDS.toMillis(result.buildNanos()));
+            response.put("processMs", TimeUnit.NANOSECONDS.toMillis(result.scanNanos()));
+            response.put("buildItemsPerSecond", Math.round(result.buildItemsPerSecond()));
+            response.put("processItemsPerSecond", Math.round(result.scanItemsPerSecond()));
+            response.put("retainedBytes", result.retainedBytes());
+            response.put("retainedBytesPerItem", result.retainedBytesPerItem());
+            response.put("allocatedBytesPerItem", result.allocatedBytesPerItem());
+            response.put("durationMs", duration);
+            response.put("timestamp", System.currentTimeMillis());
 
-        log.info("Service C: Processed {} items in {}ms", itemCount, duration);
-        return response;
+            log.info("Service C: Processed {} items in {}ms", itemCount, duration);
+            return ResponseEntity.ok(response);
+        });
     }
 
     // Slow endpoint: Simulates database query
+    // mode=async (default from slow.database.mode): waits on a shared timer without holding the
+    // request thread; mode=blocking: sleeps on the request thread, as before
     @GetMapping("/slow/database/{delayMs}")
-    public Map<String, Object> slowDatabase(@PathVariable int delayMs) {
-        log.info("Service C: Simulating database query with {}ms delay", delayMs);
-        long startTime = System.currentTimeMillis();
-
-        try {
-            Thread.sleep(delayMs);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Service C: Sleep interrupted", e);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> slowDatabase(@PathVariable int delayMs,
+                                                                               @RequestParam(required = false) String mode) {
+        SlowQuerySimulator.Mode selected = mode == null
+            ? slowQuerySimulator.defaultMode()
+            : SlowQuerySimulator.Mode.parse(mode).orElse(null);
+        if (selected == null) {
+            return CompletableFuture.completedFuture(badRequest("mode must be async or blocking"));
+        }
+        if (delayMs < 0 || delayMs > slowQuerySimulator.maxDelayMs()) {
+            return CompletableFuture.completedFuture(
+                badRequest("delayMs must be between 0 and " + slowQuerySimulator.maxDelayMs()));
         }
 
-        long duration = System.currentTimeMillis() - startTime;
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "service-c");
-        response.put("operation", "database-query");
-        response.put("expectedDelayMs", delayMs);
-        response.put("actualDurationMs", duration);
-        response.put("resultCount", ThreadLocalRandom.current().nextInt(1, 100));
-        response.put("timestamp", System.currentTimeMillis());
+        log.info("Service C: Simulating database query with {}ms delay in {} mode", delayMs, selected);
+        return slowQuerySimulator.query(selected, delayMs).thenApply(duration -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("service", "service-c");
+            response.put("operation", "database-query");
+            response.put("mode", selected.name().toLowerCase());
+            response.put("expectedDelayMs", delayMs);
+            response.put("actualDurationMs", duration);
+            response.put("resultCount", ThreadLocalRandom.current().nextInt(1, 100));
+            response.put("timestamp", System.currentTimeMillis());
 
-        log.info("Service C: Database simulation completed in {}ms", duration);
-        return response;
+            log.info("Service C: Database simulation completed in {}ms", duration);
+            return ResponseEntity.ok(response);
+        });
     }
 
     // Error simulation endpoint
@@ -480,15 +906,73 @@ class ServiceController {
         }
     }
 
-    // Helper method to check if number is prime
-    private boolean isPrime(int num) {
-        if (num <= 1) return false;
-        if (num == 2) return true;
-        if (num % 2 == 0) return false;
+    // Runs CPU-bound work as a compute pool job. The request thread is released while the job waits
+    // or runs; a full queue is rejected at once with 503, and a passed deadline ends in 503 as well.
+    // If the request times out or the client goes away, the job is cancelled
+    private DeferredResult<ResponseEntity<Map<String, Object>>> compute(
+            String workload, Long timeoutMs, ComputePool.Work<ResponseEntity<Map<String, Object>>> work) {
+        if (timeoutMs != null && timeoutMs <= 0) {
+            return completed(badRequest("timeoutMs must be positive"));
+        }
+        CompletableFuture<ResponseEntity<Map<String, Object>>> future;
+        try {
+            future = computePool.submit(workload, timeoutMs == null ? null : Duration.ofMillis(timeoutMs), work);
+        } catch (ComputeRejectedException e) {
+            log.warn("Service C: Rejected {} request: {}", workload, e.getMessage());
+            return completed(unavailable(e.getMessage()));
+        }
 
-        for (int i = 3; i * i <= num; i += 2) {
-            if (num % i == 0) return false;
+        DeferredResult<ResponseEntity<Map<String, Object>>> deferred = new DeferredResult<>();
+        deferred.onTimeout(() -> future.cancel(false));
+        deferred.onError(error -> future.cancel(false));
+        future.whenComplete((response, error) -> {
+            if (error == null) {
+                deferred.setResult(response);
+            } else if (error instanceof TimeoutException) {
+                deferred.setResult(unavailable(workload + " request exceeded its deadline"));
+            } else if (!(error instanceof CancellationException)) {
+                deferred.setErrorResult(error);
+            }
+        });
+        return deferred;
+    }
+
+    private static DeferredResult<ResponseEntity<Map<String, Object>>> completed(ResponseEntity<Map<String, Object>> response) {
+        DeferredResult<ResponseEntity<Map<String, Object>>> deferred = new DeferredResult<>();
+        deferred.setResult(response);
+        return deferred;
+    }
+
+    // Sends a JSON error through an emitter, for endpoints that stream their successful responses
+    private static ResponseEntity<ResponseBodyEmitter> emitted(ResponseEntity<Map<String, Object>> response) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        try {
+            emitter.send(response.getBody(), MediaType.APPLICATION_JSON);
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
         }
-        return true;
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(emitter);
+    }
+
+    // Helper method for overload: the client should retry later
+    private ResponseEntity<Map<String, Object>> unavailable(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("service", "service-c");
+        error.put("error", message);
+        error.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
+    // Helper method for invalid request parameters
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("service", "service-c");
+        error.put("error", message);
+        error.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.badRequest().body(error);
     }
 }
@@ -1,28 +1,73 @@
 package com.example.otel.servicec;
 
+import com.example.otel.servicec.event.ServiceEvent;
+import com.example.otel.servicec.kafka.ConsumerMetrics;
+import com.example.otel.servicec.kafka.EventBatchWriter;
+import com.example.otel.servicec.kafka.MessageDeduplicator;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles {@code service-events} by storing each event through {@link EventBatchWriter}. In
+ * {@code record} mode the Spring listener container calls {@link #listen} one record at a time
+ * and waits for the row to be committed; in {@code parallel} mode
+ * {@link com.example.otel.servicec.kafka.KeyOrderedEventConsumer} calls {@link #process} from its
+ * worker threads and completes the record when the returned future does.
+ */
 @Slf4j
 @Service
 public class KafkaEventListener {
 
-    @KafkaListener(topics = "service-events", groupId = "service-c-group")
-    public void listen(String message) {
-        log.info("Service C: Received Kafka message: {}", message);
+    private final EventBatchWriter eventBatchWriter;
+    private final ConsumerMetrics consumerMetrics;
+    private final MessageDeduplicator deduplicator;
+    private final long processingTimeMs;
 
-        try {
-            // Simulate some processing
-            Thread.sleep(150);
+    public KafkaEventListener(EventBatchWriter eventBatchWriter,
+                              ConsumerMetrics consumerMetrics,
+                              MessageDeduplicator deduplicator,
+                              @Value("${kafka.consumer.processing-time-ms:0}") long processingTimeMs) {
+        this.eventBatchWriter = eventBatchWriter;
+        this.consumerMetrics = consumerMetrics;
+        this.deduplicator = deduplicator;
+        this.processingTimeMs = processingTimeMs;
+    }
 
-            // Process the message
-            log.info("Service C: Successfully processed message");
+    @KafkaListener(id = "service-c-record", topics = "service-events", groupId = "service-c-group")
+    public void listen(ConsumerRecord<String, ServiceEvent> record) {
+        try {
+            process(record).join();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("Service C: Message processing interrupted", e);
-        } catch (Exception e) {
-            log.error("Service C: Error processing message", e);
         }
     }
+
+    /**
+     * Returns a future that completes once the event is stored. Duplicates are filtered out before
+     * this is called: by the container's record filter, or by the parallel consumer. A copy that
+     * gets past the filter before the first one is stored is skipped by the insert.
+     */
+    public CompletableFuture<Void> process(ConsumerRecord<String, ServiceEvent> record) throws InterruptedException {
+        long startTime = consumerMetrics.startRecord(record);
+        ServiceEvent event = record.value();
+        log.debug("Service C: Received Kafka message {} from {}", event.messageId(), event.source());
+
+        if (processingTimeMs > 0) {
+            // Optional simulated work before the event is stored
+            Thread.sleep(processingTimeMs);
+        }
+        return eventBatchWriter.write(record)
+            .whenComplete((ignored, error) -> {
+                consumerMetrics.endRecord(startTime);
+                if (error == null) {
+                    deduplicator.processed(event);
+                }
+            });
+    }
 }
@@ -0,0 +1,122 @@
+package com.example.otel.servicec.cache;
+
+import com.example.otel.servicec.projection.OrderView;
+import com.example.otel.servicec.projection.UserView;
+import com.example.otel.servicec.repository.OrderRepository;
+import com.example.otel.servicec.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for {@link UserView} and {@link OrderView} lookups by id.
+ *
+ * <p>Misses load from the repositories; ids that do not exist are not cached, so rows inserted
+ * later become visible immediately. Entries are evicted by size and by age since write, and
+ * hit/miss/eviction counts are published as {@code cache_*} metrics tagged {@code cache=users}
+ * or {@code cache=orders}. Setting {@code cache.entities.max-size} to 0 effectively disables
+ * caching while keeping the metrics.
+ */
+@Slf4j
+@Component
+public class EntityCache {
+
+    private final LoadingCache<Long, UserView> users;
+    private final LoadingCache<Long, OrderView> orders;
+
+    public EntityCache(UserRepository userRepository,
+                       OrderRepository orderRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${cache.entities.max-size:10000}") long maxSize,
+                       @Value("${cache.entities.ttl:5m}") Duration ttl) {
+        this.users = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build(new RepositoryLoader<>(
+                id -> userRepository.findViewById(id).orElse(null),
+                ids -> toMap(userRepository.findViewsByIdIn(ids), UserView::id)));
+        this.orders = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build(new RepositoryLoader<>(
+                id -> orderRepository.findViewById(id).orElse(null),
+                ids -> toMap(orderRepository.findViewsByIdIn(ids), OrderView::id)));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+        CaffeineCacheMetrics.monitor(meterRegistry, orders, "orders");
+        log.info("Service C: Entity cache enabled with maxSize={} ttl={}", maxSize, ttl);
+    }
+
+    public Optional<UserView> getUser(Long id) {
+        return Optional.ofNullable(users.get(id));
+    }
+
+    /** Returns the users that exist; ids without a row are absent from the map. */
+    public Map<Long, UserView> getUsers(Collection<Long> ids) {
+        return users.getAll(ids);
+    }
+
+    public void putUser(UserView user) {
+        users.put(user.id(), user);
+    }
+
+    public Optional<OrderView> getOrder(Long id) {
+        return Optional.ofNullable(orders.get(id));
+    }
+
+    /** Returns the orders that exist; ids without a row are absent from the map. */
+    public Map<Long, OrderView> getOrders(Collection<Long> ids) {
+        return orders.getAll(ids);
+    }
+
+    public void putOrder(OrderView order) {
+        orders.put(order.id(), order);
+    }
+
+    private static <T> Map<Long, T> toMap(Iterable<T> entities, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T entity : entities) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        return byId;
+    }
+
+    /** Adapts single and bulk repository lookups to Caffeine's loader contract. */
+    private static final class RepositoryLoader<T> implements CacheLoader<Long, T> {
+
+        private final Function<Long, T> loadOne;
+        private final Function<Set<Long>, Map<Long, T>> loadMany;
+
+        RepositoryLoader(Function<Long, T> loadOne,
+                         Function<Set<Long>, Map<Long, T>> loadMany) {
+            this.loadOne = loadOne;
+            this.loadMany = loadMany;
+        }
+
+        @Override
+        public T load(Long id) {
+            return loadOne.apply(id);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<Long, T> loadAll(Set<? extends Long> ids) {
+            return loadMany.apply((Set<Long>) ids);
+        }
+    }
+}
@@ -1,42 +1,95 @@
 package com.example.otel.servicec.config;
 
+import com.example.otel.servicec.event.ServiceEvent;
+import com.example.otel.servicec.event.ServiceEventDeserializer;
+import com.example.otel.servicec.kafka.ConsumerMetrics;
+import com.example.otel.servicec.kafka.MessageDeduplicator;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Consumer setup for {@code service-events}.
+ *
+ * <p>In {@code parallel} mode (the default) one consumer per pod hands records to
+ * {@link com.example.otel.servicec.kafka.KeyOrderedEventConsumer}, which processes different keys
+ * concurrently and commits offsets itself. In {@code record} mode the Spring listener container
+ * processes one record at a time with auto-commit, as before, and is the only one started.
+ */
 @EnableKafka
 @Configuration
 public class KafkaConsumerConfig {
 
+    public enum Mode { RECORD, PARALLEL }
+
     @Value("${spring.kafka.bootstrap-servers:kafka-0.kafka.services.svc.cluster.local:9092}")
     private String bootstrapServers;
 
+    @Value("${kafka.consumer.mode:parallel}")
+    private Mode mode;
+
+    // Consumer threads are virtual when the rest of the service runs on virtual threads
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, ServiceEvent> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "service-c-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Binary or legacy JSON events; a record that cannot be decoded is logged and skipped
+        // by the error handler instead of being redelivered forever
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, ServiceEventDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
-        return new DefaultKafkaConsumerFactory<>(props);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, mode == Mode.RECORD);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        DefaultKafkaConsumerFactory<String, ServiceEvent> factory = new DefaultKafkaConsumerFactory<>(props);
+        // Publishes the client's own metrics (kafka_consumer_*, including per-partition records_lag)
+        // to /actuator/prometheus; they are read from the client on scrape, not in the poll loop
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, ServiceEvent> kafkaListenerContainerFactory(
+            ConsumerFactory<String, ServiceEvent> consumerFactory, ConsumerMetrics consumerMetrics,
+            MessageDeduplicator deduplicator) {
+        ConcurrentKafkaListenerContainerFactory<String, ServiceEvent> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setConsumerRebalanceListener(consumerMetrics);
+        // Already-processed message ids are dropped before the listener and still committed
+        factory.setRecordFilterStrategy(deduplicator);
+        factory.setAckDiscarded(true);
+        if (virtualThreads) {
+            factory.getContainerProperties().setListenerTaskExecutor(virtualThreadExecutor());
+        }
+        factory.setAutoStartup(mode == Mode.RECORD);
         return factory;
     }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("service-c-kafka-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
 }
@@ -0,0 +1,46 @@
+package com.example.otel.servicec.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A {@code service-events} message stored by Service C. Rows are inserted in batches by
+ * {@link com.example.otel.servicec.kafka.EventBatchWriter}; the entity defines the table for
+ * schema generation.
+ */
+@Entity
+@Table(name = "service_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceEventRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "message_id", nullable = false, unique = true)
+    private UUID messageId;
+
+    private String source;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "event_time", nullable = false)
+    private LocalDateTime eventTime;
+
+    @Column(name = "kafka_partition", nullable = false)
+    private Integer kafkaPartition;
+
+    @Column(name = "kafka_offset", nullable = false)
+    private Long kafkaOffset;
+
+    @Column(name = "stored_at", nullable = false)
+    private LocalDateTime storedAt;
+}
@@ -0,0 +1,144 @@
+package com.example.otel.servicec.ingest;
+
+import com.example.otel.servicec.entity.Order;
+import com.example.otel.servicec.repository.OrderRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loads large numbers of orders from a JSON array or NDJSON stream.
+ *
+ * <p>The body is parsed incrementally, so only one batch is held in memory. In {@code batch}
+ * mode each batch is written with a single JDBC batch statement in its own transaction. With
+ * {@code reWriteBatchedInserts=true} on the JDBC URL, pgjdbc sends it as multi-row INSERTs and
+ * ids come from the {@code orders.id} BIGSERIAL default. The {@code single} mode keeps the
+ * original one-{@code save()}-per-row path for comparison.
+ */
+@Slf4j
+@Component
+public class BulkOrderIngestor {
+
+    public enum Mode { BATCH, SINGLE }
+
+    private static final String INSERT_SQL =
+        "INSERT INTO orders (order_number, user_id, amount, status, items_count, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderRepository orderRepository;
+    private final ObjectReader orderReader;
+    private final MeterRegistry meterRegistry;
+
+    public BulkOrderIngestor(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             OrderRepository orderRepository,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderRepository = orderRepository;
+        this.orderReader = objectMapper.readerFor(OrderRow.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public IngestResult ingest(InputStream body, Mode mode, int batchSize) {
+        Counter rowsCounter = Counter.builder("ingest.rows")
+            .description("Rows written by bulk ingestion")
+            .tag("table", "orders")
+            .tag("method", mode.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry);
+
+        long startTime = System.nanoTime();
+        long rows = 0;
+        long batches = 0;
+        List<OrderRow> batch = new ArrayList<>(batchSize);
+
+        try (MappingIterator<OrderRow> iterator = orderReader.readValues(body)) {
+            while (iterator.hasNextValue()) {
+                OrderRow row = iterator.nextValue().validate(rows + batch.size());
+                if (mode == Mode.SINGLE) {
+                    orderRepository.save(row.toOrder());
+                    rows++;
+                    rowsCounter.increment();
+                    continue;
+                }
+
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    writeBatch(batch);
+                    rows += batch.size();
+                    batches++;
+                    rowsCounter.increment(batch.size());
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                rows += batch.size();
+                batches++;
+                rowsCounter.increment(batch.size());
+            }
+        } catch (RuntimeException | IOException e) {
+            throw new IngestException(e.getMessage(), rows, e);
+        }
+
+        return new IngestResult("orders", mode.name().toLowerCase(Locale.ROOT), rows, batches, System.nanoTime() - startTime);
+    }
+
+    private void writeBatch(List<OrderRow> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, row) -> {
+                ps.setString(1, row.orderNumber());
+                ps.setLong(2, row.userId());
+                ps.setBigDecimal(3, row.amount());
+                ps.setString(4, row.status());
+                ps.setInt(5, row.itemsCount());
+                ps.setTimestamp(6, now);
+                ps.setTimestamp(7, now);
+            }));
+    }
+
+    /** One element of the request body; same fields and defaults as POST /api/data/order. */
+    record OrderRow(String orderNumber, Long userId, BigDecimal amount, String status, Integer itemsCount) {
+
+        OrderRow validate(long index) {
+            if (orderNumber == null || userId == null || amount == null) {
+                throw new IllegalArgumentException(
+                    "Row " + index + ": orderNumber, userId, and amount are required");
+            }
+            return new OrderRow(orderNumber, userId, amount,
+                status != null ? status : "pending",
+                itemsCount != null ? itemsCount : 1);
+        }
+
+        Order toOrder() {
+            Order order = new Order();
+            order.setOrderNumber(orderNumber);
+            order.setUserId(userId);
+            order.setAmount(amount);
+            order.setStatus(status);
+            order.setItemsCount(itemsCount);
+            return order;
+        }
+    }
+}
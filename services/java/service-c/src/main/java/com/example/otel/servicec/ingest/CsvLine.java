@@ -0,0 +1,66 @@
+package com.example.otel.servicec.ingest;
+
+/**
+ * Minimal RFC 4180 field splitter for single-line CSV records.
+ */
+final class CsvLine {
+
+    private CsvLine() {
+    }
+
+    /**
+     * Splits {@code line} into {@code fields} and returns the number of fields found. Quoted
+     * fields may contain commas and doubled quotes; fields spanning lines are rejected.
+     */
+    static int split(String line, String[] fields, long lineNumber) {
+        int count = 0;
+        int length = line.length();
+        int i = 0;
+        StringBuilder quoted = null;
+
+        while (true) {
+            if (count == fields.length) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": too many columns");
+            }
+            if (i < length && line.charAt(i) == '"') {
+                if (quoted == null) {
+                    quoted = new StringBuilder();
+                }
+                quoted.setLength(0);
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Line " + lineNumber + ": unterminated quoted field");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            quoted.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+                fields[count++] = quoted.toString();
+                if (i < length && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": unexpected text after quoted field");
+                }
+            } else {
+                int end = line.indexOf(',', i);
+                if (end < 0) {
+                    end = length;
+                }
+                fields[count++] = line.substring(i, end);
+                i = end;
+            }
+
+            if (i >= length) {
+                return count;
+            }
+            i++; // skip the comma
+        }
+    }
+}
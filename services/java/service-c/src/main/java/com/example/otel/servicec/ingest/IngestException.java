@@ -0,0 +1,19 @@
+package com.example.otel.servicec.ingest;
+
+/**
+ * Raised when a bulk load stops part way. Batches written before the failure stay committed,
+ * so the caller is told how many rows made it in.
+ */
+public class IngestException extends RuntimeException {
+
+    private final long rowsInserted;
+
+    public IngestException(String message, long rowsInserted, Throwable cause) {
+        super(message, cause);
+        this.rowsInserted = rowsInserted;
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted;
+    }
+}
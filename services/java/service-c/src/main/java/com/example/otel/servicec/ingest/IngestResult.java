@@ -0,0 +1,27 @@
+package com.example.otel.servicec.ingest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk load, reported back to the caller.
+ */
+public record IngestResult(String table, String method, long rows, long batches, long durationNanos) {
+
+    public double rowsPerSecond() {
+        return durationNanos == 0 ? 0 : rows * 1_000_000_000d / durationNanos;
+    }
+
+    public Map<String, Object> toResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("service", "service-c");
+        response.put("table", table);
+        response.put("method", method);
+        response.put("rowsInserted", rows);
+        response.put("batches", batches);
+        response.put("durationMs", durationNanos / 1_000_000);
+        response.put("rowsPerSecond", Math.round(rowsPerSecond()));
+        response.put("timestamp", System.currentTimeMillis());
+        return response;
+    }
+}
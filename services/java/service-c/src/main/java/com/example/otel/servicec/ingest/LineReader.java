@@ -0,0 +1,71 @@
+package com.example.otel.servicec.ingest;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads {@code \n} or {@code \r\n} terminated lines like {@link java.io.BufferedReader#readLine},
+ * but fails on a line longer than {@code maxLength} characters instead of buffering all of it.
+ */
+final class LineReader {
+
+    private final Reader in;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+
+    LineReader(Reader in, int maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns the next line without its terminator, or null at the end of the input.
+     *
+     * @throws IllegalArgumentException if the line is longer than {@code maxLength}
+     */
+    String readLine(long lineNumber) throws IOException {
+        line.setLength(0);
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = Math.max(in.read(buffer), 0);
+                position = 0;
+                if (limit == 0) {
+                    return read ? terminated(lineNumber) : null;
+                }
+            }
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            // One more for a \r before the \n
+            if (line.length() + (position - start) > maxLength + 1) {
+                throw tooLong(lineNumber);
+            }
+            line.append(buffer, start, position - start);
+            if (position < limit) {
+                position++;
+                return terminated(lineNumber);
+            }
+        }
+    }
+
+    private String terminated(long lineNumber) {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(--length);
+        }
+        if (length > maxLength) {
+            throw tooLong(lineNumber);
+        }
+        return line.toString();
+    }
+
+    private IllegalArgumentException tooLong(long lineNumber) {
+        return new IllegalArgumentException("Line " + lineNumber + ": longer than " + maxLength + " characters");
+    }
+}
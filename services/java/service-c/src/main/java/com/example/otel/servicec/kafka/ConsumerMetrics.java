@@ -0,0 +1,107 @@
+package com.example.otel.servicec.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener-side metrics for {@code service-c-group}, complementing the client's own
+ * {@code kafka_consumer_*} metrics (including per-partition {@code records_lag}).
+ *
+ * <ul>
+ *   <li>{@code kafka_listener_record_delay_seconds}: record timestamp to start of processing</li>
+ *   <li>{@code kafka_listener_processing_seconds}: start of processing until the row is stored</li>
+ *   <li>{@code kafka_listener_batch_size}: records per poll in {@code parallel} mode</li>
+ *   <li>{@code kafka_listener_rebalances_total}: partitions assigned, revoked or lost</li>
+ *   <li>{@code kafka_listener_in_flight}: records not yet stored, registered by
+ *       {@link KeyOrderedEventConsumer}</li>
+ * </ul>
+ *
+ * <p>Meters are created once, so recording is a lock-free update per record or poll.
+ */
+@Component
+public class ConsumerMetrics implements ConsumerAwareRebalanceListener {
+
+    private static final String GROUP = "service-c-group";
+
+    private final Timer recordDelay;
+    private final Timer processing;
+    private final DistributionSummary batchSize;
+    private final Counter assigned;
+    private final Counter revoked;
+    private final Counter lost;
+
+    public ConsumerMetrics(MeterRegistry meterRegistry) {
+        this.recordDelay = Timer.builder("kafka.listener.record.delay")
+            .description("Time from the record's timestamp until processing started")
+            .tag("group", GROUP)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.processing = Timer.builder("kafka.listener.processing")
+            .description("Time from the start of processing until the record's row was stored")
+            .tag("group", GROUP)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("kafka.listener.batch.size")
+            .description("Records returned by one poll")
+            .tag("group", GROUP)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.assigned = rebalanceCounter(meterRegistry, "assigned");
+        this.revoked = rebalanceCounter(meterRegistry, "revoked");
+        this.lost = rebalanceCounter(meterRegistry, "lost");
+    }
+
+    /** Records the delay of one record and returns the time processing started. */
+    public long startRecord(ConsumerRecord<?, ?> record) {
+        long now = System.currentTimeMillis();
+        recordDelay(record, now);
+        return System.nanoTime();
+    }
+
+    public void endRecord(long startNanos) {
+        processing.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void polled(int records) {
+        batchSize.record(records);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        assigned.increment(partitions.size());
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoked.increment(partitions.size());
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        lost.increment(partitions.size());
+    }
+
+    private void recordDelay(ConsumerRecord<?, ?> record, long now) {
+        if (record.timestamp() > 0) {
+            recordDelay.record(Math.max(0, now - record.timestamp()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Counter rebalanceCounter(MeterRegistry meterRegistry, String event) {
+        return Counter.builder("kafka.listener.rebalances")
+            .description("Partitions assigned, revoked or lost in rebalances")
+            .tag("group", GROUP)
+            .tag("event", event)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.otel.servicec.kafka;
+
+import com.example.otel.servicec.event.ServiceEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit writer for the {@code service_events} table.
+ *
+ * <p>Callers enqueue records and get a future back. A single flusher thread collects them into
+ * batches of up to {@code events.store.batch-size} rows, waiting at most
+ * {@code events.store.max-delay} after the first row of a batch, and writes each batch with one
+ * JDBC batch statement in one transaction. The futures complete only after that transaction has
+ * committed, so consumers commit Kafka offsets for stored rows only.
+ *
+ * <p>A flush that fails with a transient error (lost connection, serialization failure, the
+ * server shutting down or out of resources) is retried with backoff until it succeeds or the
+ * writer is stopped; meanwhile the unfinished futures hold back the consumer's offsets and,
+ * through its in-flight limit, its polling. Any other error is taken to come from the data: the
+ * batch is split in halves and each half written again, until the failing rows are alone. Those
+ * are logged, counted as {@code events_store_rejected_total}, and their futures complete with
+ * {@link EventRejectedException}; the rest of the batch is stored.
+ *
+ * <p>{@code message_id} is unique and inserts skip rows that conflict, so a redelivered event is
+ * stored once even when the in-memory deduplicator has not seen its first copy committed yet. The
+ * table is also the deduplicator's {@link MessageDeduplicator.ProcessedIds}: a Bloom filter hit is
+ * confirmed against it before a record is skipped.
+ *
+ * <p>End-to-end latency from the producer's timestamp to the commit is published as
+ * {@code events_store_latency_seconds}, together with flush time and batch size.
+ */
+@Slf4j
+@Component
+public class EventBatchWriter implements SmartLifecycle, MessageDeduplicator.ProcessedIds {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO service_events (message_id, source, message, event_time, kafka_partition, kafka_offset, stored_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+            // A copy of an event that is already stored, or in the same batch, is skipped
+            + "ON CONFLICT DO NOTHING";
+    private static final String EXISTS_SQL =
+        "SELECT EXISTS (SELECT 1 FROM service_events WHERE message_id = ?)";
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingEvent> queue = new LinkedBlockingQueue<>();
+
+    private final Counter storedCounter;
+    private final Counter rejectedCounter;
+    private final Timer latencyTimer;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private Thread flushThread;
+    private volatile boolean running;
+
+    public EventBatchWriter(DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${events.store.batch-size:1000}") int batchSize,
+                            @Value("${events.store.max-delay:20ms}") Duration maxDelay) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+
+        this.storedCounter = Counter.builder("events.store.rows")
+            .description("Events written to service_events")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("events.store.rejected")
+            .description("Events the database rejected, which are logged instead of stored")
+            .register(meterRegistry);
+        this.latencyTimer = Timer.builder("events.store.latency")
+            .description("Time from the producer's event timestamp until the row was committed")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("events.store.flush")
+            .description("Time to write and commit one batch")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("events.store.batch.size")
+            .description("Rows per committed batch")
+            .register(meterRegistry);
+        meterRegistry.gauge("events.store.queued", queue, BlockingQueue::size);
+    }
+
+    /** Enqueues a record; the future completes once its row is committed. */
+    public CompletableFuture<Void> write(ConsumerRecord<String, ServiceEvent> record) {
+        PendingEvent pending = new PendingEvent(record.value(), record.partition(), record.offset(),
+            new CompletableFuture<>());
+        if (!running) {
+            pending.done().completeExceptionally(new IllegalStateException("Event writer is stopped"));
+            return pending.done();
+        }
+        queue.add(pending);
+        return pending.done();
+    }
+
+    /** Whether a row for {@code messageId} has been committed. */
+    @Override
+    public boolean contains(UUID messageId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_SQL, Boolean.class, messageId));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flushThread = new Thread(this::flushLoop, "service-c-event-writer");
+        flushThread.start();
+        log.info("Service C: Storing events in batches of up to {} rows, max delay {}ms",
+            batchSize, TimeUnit.NANOSECONDS.toMillis(maxDelayNanos));
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flushThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Started before and stopped after KeyOrderedEventConsumer, so its last records are flushed
+        return Integer.MAX_VALUE - 200;
+    }
+
+    private void flushLoop() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingEvent next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flushWithRetry(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failAll(batch, new IllegalStateException("Event writer stopped"));
+    }
+
+    private void flushWithRetry(List<PendingEvent> batch) throws InterruptedException {
+        long backoffMs = 100;
+        while (true) {
+            try {
+                flush(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    failAll(batch, e);
+                    return;
+                }
+                if (!isTransient(e)) {
+                    isolate(batch, e);
+                    return;
+                }
+                log.warn("Service C: Writing {} events failed, retrying in {}ms: {}", batch.size(), backoffMs, e.toString());
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    /** Writes the halves of a batch that failed on its data separately, down to single rows. */
+    private void isolate(List<PendingEvent> batch, RuntimeException cause) throws InterruptedException {
+        if (batch.size() == 1) {
+            PendingEvent pending = batch.get(0);
+            log.error("Service C: Rejected event {} from partition {} offset {}: {}", pending.event().messageId(),
+                pending.partition(), pending.offset(), cause.toString());
+            rejectedCounter.increment();
+            pending.done().completeExceptionally(new EventRejectedException(
+                "Event " + pending.event().messageId() + " cannot be stored", cause));
+            return;
+        }
+        int half = batch.size() / 2;
+        flushWithRetry(new ArrayList<>(batch.subList(0, half)));
+        flushWithRetry(new ArrayList<>(batch.subList(half, batch.size())));
+    }
+
+    /**
+     * Whether the failure is worth retrying unchanged: a transient or recoverable JDBC error, or a
+     * SQLState of class 08 (connection), 40 (serialization failure, deadlock), 53 (insufficient
+     * resources) or 57 (operator intervention, e.g. the server shutting down).
+     */
+    static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql) {
+                for (SQLException next = sql; next != null; next = next.getNextException()) {
+                    String state = next.getSQLState();
+                    if (state != null && (state.startsWith("08") || state.startsWith("40")
+                        || state.startsWith("53") || state.startsWith("57"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void flush(List<PendingEvent> batch) {
+        long startTime = System.nanoTime();
+        Timestamp storedAt = new Timestamp(System.currentTimeMillis());
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, pending) -> {
+                ServiceEvent event = pending.event();
+                ps.setObject(1, event.messageId());
+                ps.setString(2, event.source());
+                ps.setString(3, event.message());
+                ps.setTimestamp(4, new Timestamp(event.timestamp()));
+                ps.setInt(5, pending.partition());
+                ps.setLong(6, pending.offset());
+                ps.setTimestamp(7, storedAt);
+            }));
+        flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        batchSizeSummary.record(batch.size());
+        storedCounter.increment(batch.size());
+
+        long committedAt = System.currentTimeMillis();
+        for (PendingEvent pending : batch) {
+            latencyTimer.record(Math.max(0, committedAt - pending.event().timestamp()), TimeUnit.MILLISECONDS);
+            pending.done().complete(null);
+        }
+    }
+
+    private void failAll(List<PendingEvent> batch, Exception cause) {
+        for (PendingEvent pending : batch) {
+            pending.done().completeExceptionally(cause);
+        }
+        batch.clear();
+        PendingEvent pending;
+        while ((pending = queue.poll()) != null) {
+            pending.done().completeExceptionally(cause);
+        }
+    }
+
+    private record PendingEvent(ServiceEvent event, int partition, long offset, CompletableFuture<Void> done) {
+    }
+}
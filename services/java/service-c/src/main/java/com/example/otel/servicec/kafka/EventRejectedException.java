@@ -0,0 +1,12 @@
+package com.example.otel.servicec.kafka;
+
+/**
+ * Completes the future of an event that {@link EventBatchWriter} cannot store however often it
+ * retries, such as a message Postgres rejects. The event is logged and counted; it is not stored.
+ */
+public class EventRejectedException extends RuntimeException {
+
+    public EventRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
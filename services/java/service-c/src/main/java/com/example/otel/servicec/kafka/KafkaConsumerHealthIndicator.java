@@ -0,0 +1,38 @@
+package com.example.otel.servicec.kafka;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code kafkaConsumer} entry of {@code /actuator/health}: {@code DOWN} once
+ * {@link KeyOrderedEventConsumer} has stopped on an error it cannot retry, so the pod is restarted
+ * or taken out of rotation instead of silently not consuming. {@code UNKNOWN} in record mode, where
+ * Spring's listener container consumes instead. Stalled partitions are listed as a detail; the
+ * others are still consumed, so they do not turn it {@code DOWN}.
+ */
+@Component
+@RequiredArgsConstructor
+public class KafkaConsumerHealthIndicator implements HealthIndicator {
+
+    private final KeyOrderedEventConsumer consumer;
+
+    @Override
+    public Health health() {
+        RuntimeException failure = consumer.failure();
+        if (failure != null) {
+            return Health.down(failure).build();
+        }
+        if (!consumer.isAutoStartup()) {
+            return Health.unknown().withDetail("mode", "record").build();
+        }
+        if (!consumer.isRunning()) {
+            return Health.outOfService().build();
+        }
+        return Health.up()
+            .withDetail("inFlight", consumer.inFlight())
+            .withDetail("stalledPartitions", consumer.stalled().keySet().stream().map(String::valueOf).sorted().toList())
+            .build();
+    }
+}
@@ -0,0 +1,458 @@
+package com.example.otel.servicec.kafka;
+
+import com.example.otel.servicec.KafkaEventListener;
+import com.example.otel.servicec.config.KafkaConsumerConfig;
+import com.example.otel.servicec.event.ServiceEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.AuthenticationException;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.FencedInstanceIdException;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.InvalidGroupIdException;
+import org.apache.kafka.common.errors.UnsupportedVersionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes {@code service-events} with many workers behind a single consumer, for
+ * {@code kafka.consumer.mode=parallel}.
+ *
+ * <p>Each record goes to one of {@code kafka.consumer.workers} single-threaded lanes chosen by its
+ * key (the message id set by Service A), so records with the same key run one after another in
+ * offset order while different keys run concurrently. Throughput therefore scales with the worker
+ * count rather than the partition count.
+ *
+ * <p>A record is finished when the future returned by the listener completes, that is once its
+ * row is committed. Offsets are committed per partition up to the lowest record that has not
+ * finished, so a restart never skips unprocessed records; records finished after that point may be
+ * processed again. Once {@code kafka.consumer.max-in-flight} records are unfinished, all assigned
+ * partitions are paused; polling continues, so the consumer stays in the group, and partitions are
+ * resumed when the backlog has fallen to half.
+ *
+ * <p>An event the database rejects was logged and counted by {@link EventBatchWriter}, so its
+ * record is finished like any other. Any other failure stalls its partition: the partition is
+ * paused and sought back to the failed record, offsets stop at it, and
+ * {@code kafka.listener.stalled.partitions} and the health details show it. Other partitions carry
+ * on. The next owner after a restart or rebalance starts again from the failed record.
+ *
+ * <p>With {@code spring.threads.virtual.enabled} the lanes run on virtual threads, so a blocking
+ * listener can be given thousands of lanes without a platform thread each.
+ *
+ * <p>A failed poll is retried with backoff, and the consumer keeps its place. Only errors
+ * that retrying cannot fix, such as failed authentication or authorization, stop it; the error
+ * then turns {@link KafkaConsumerHealthIndicator} {@code DOWN}.
+ */
+@Slf4j
+@Component
+public class KeyOrderedEventConsumer implements SmartLifecycle, ConsumerRebalanceListener {
+
+    private static final String TOPIC = "service-events";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final Duration COMMIT_TIMEOUT = Duration.ofSeconds(10);
+    private static final long MAX_RETRY_BACKOFF_MS = 10_000;
+
+    private final ConsumerFactory<String, ServiceEvent> consumerFactory;
+    private final KafkaEventListener listener;
+    private final ConsumerMetrics consumerMetrics;
+    private final MessageDeduplicator deduplicator;
+    private final KafkaConsumerConfig.Mode mode;
+    private final int workers;
+    private final boolean virtualThreads;
+    private final int maxInFlight;
+    private final long shutdownTimeoutMs;
+
+    private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Stalled partitions and their failed offset; the queue hands new ones to the poll thread
+    private final Map<TopicPartition, Long> stalled = new ConcurrentHashMap<>();
+    private final Queue<TopicPartition> toStall = new ConcurrentLinkedQueue<>();
+    private ExecutorService[] lanes;
+    private Thread pollThread;
+    private volatile boolean running;
+    private volatile RuntimeException failure;
+
+    // Confined to the poll thread
+    private Consumer<String, ServiceEvent> consumer;
+    private boolean paused;
+
+    public KeyOrderedEventConsumer(ConsumerFactory<String, ServiceEvent> consumerFactory,
+                                   KafkaEventListener listener,
+                                   ConsumerMetrics consumerMetrics,
+                                   MessageDeduplicator deduplicator,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${kafka.consumer.mode:parallel}") KafkaConsumerConfig.Mode mode,
+                                   @Value("${kafka.consumer.workers:32}") int workers,
+                                   @Value("${kafka.consumer.max-in-flight:10000}") int maxInFlight,
+                                   @Value("${kafka.consumer.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.consumerFactory = consumerFactory;
+        this.listener = listener;
+        this.consumerMetrics = consumerMetrics;
+        this.deduplicator = deduplicator;
+        this.mode = mode;
+        this.workers = workers;
+        this.maxInFlight = maxInFlight;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.virtualThreads = virtualThreads;
+        meterRegistry.gauge("kafka.listener.in.flight", inFlight);
+        meterRegistry.gauge("kafka.listener.stalled.partitions", stalled, Map::size);
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return mode == KafkaConsumerConfig.Mode.PARALLEL;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        ThreadFactory threadFactory = virtualThreads
+            ? Thread.ofVirtual().name("service-c-worker-", 1).factory()
+            : new CustomizableThreadFactory("service-c-worker-");
+        lanes = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        running = true;
+        failure = null;
+        pollThread = new Thread(this::pollLoop, "service-c-kafka-consumer");
+        pollThread.start();
+        log.info("Service C: Consuming service-events with {} key-ordered {} workers, max {} in flight",
+            workers, virtualThreads ? "virtual" : "platform", maxInFlight);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            pollThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** The error that stopped consumption, or {@code null} while it is running or was stopped normally. */
+    public RuntimeException failure() {
+        return failure;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Partitions held at a record that failed, with that record's offset. */
+    public Map<TopicPartition, Long> stalled() {
+        return Map.copyOf(stalled);
+    }
+
+    @Override
+    public int getPhase() {
+        // Same phase as Spring's listener containers: stopped before the beans records depend on
+        return Integer.MAX_VALUE - 100;
+    }
+
+    private void pollLoop() {
+        consumer = consumerFactory.createConsumer();
+        try {
+            consumer.subscribe(List.of(TOPIC), this);
+            long backoffMs = 0;
+            while (running) {
+                ConsumerRecords<String, ServiceEvent> records;
+                try {
+                    records = consumer.poll(POLL_TIMEOUT);
+                    backoffMs = 0;
+                } catch (RuntimeException e) {
+                    if (isFatal(e)) {
+                        throw e;
+                    }
+                    // Nothing was returned, so the position is unchanged; dispatched records
+                    // complete as usual and the next poll carries on where this one failed
+                    backoffMs = Math.min(Math.max(backoffMs * 2, 100), MAX_RETRY_BACKOFF_MS);
+                    log.warn("Service C: Kafka poll failed, retrying in {}ms: {}", backoffMs, e.toString());
+                    backOff(backoffMs);
+                    continue;
+                }
+                if (!records.isEmpty()) {
+                    consumerMetrics.polled(records.count());
+                }
+                for (ConsumerRecord<String, ServiceEvent> record : records) {
+                    dispatch(record);
+                }
+                pauseStalled();
+                applyBackpressure();
+                commitAsync();
+            }
+        } catch (RuntimeException e) {
+            log.error("Service C: Kafka consumer stopped", e);
+            failure = e;
+            running = false;
+        } finally {
+            drainWorkers();
+            commitSync(partitions.keySet());
+            consumer.close();
+            partitions.clear();
+            stalled.clear();
+            toStall.clear();
+        }
+    }
+
+    private static boolean isFatal(RuntimeException e) {
+        return e instanceof AuthenticationException
+            || e instanceof AuthorizationException
+            || e instanceof InvalidGroupIdException
+            || e instanceof FencedInstanceIdException
+            || e instanceof UnsupportedVersionException
+            || e instanceof ConfigException
+            || e instanceof InterruptException
+            || e instanceof IllegalStateException;
+    }
+
+    // Sleeps in poll-sized steps, so stop() is not held up by a long backoff
+    private void backOff(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        try {
+            while (running && System.nanoTime() < deadline) {
+                Thread.sleep(Math.min(POLL_TIMEOUT.toMillis(), millis));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptException(e);
+        }
+    }
+
+    private void dispatch(ConsumerRecord<String, ServiceEvent> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        PartitionOffsets offsets = partitions.computeIfAbsent(partition, tp -> new PartitionOffsets());
+        long offset = record.offset();
+        offsets.dispatched(offset);
+        inFlight.incrementAndGet();
+
+        // Records without a key keep their partition order
+        String key = record.key() != null ? record.key() : partition.toString();
+        lanes[Math.floorMod(key.hashCode(), lanes.length)].execute(() -> {
+            if (offsets.isRevoked()) {
+                // Now owned by another consumer, which resumes from the committed position
+                inFlight.decrementAndGet();
+                return;
+            }
+            if (record.value() == null) {
+                log.warn("Service C: Skipping undecodable record {} at offset {}", partition, offset);
+                offsets.completed(offset);
+                inFlight.decrementAndGet();
+                return;
+            }
+            if (deduplicator.isDuplicate(record.value())) {
+                // The filter hit was confirmed against service_events, so an earlier copy is
+                // stored. Copies that arrive while the first is still being written pass this
+                // check, and the unique message_id turns their insert into a no-op
+                offsets.completed(offset);
+                inFlight.decrementAndGet();
+                return;
+            }
+            CompletableFuture<Void> stored;
+            try {
+                stored = listener.process(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stored = CompletableFuture.failedFuture(e);
+            } catch (RuntimeException e) {
+                stored = CompletableFuture.failedFuture(e);
+            }
+            // The record counts as done once its row is committed, or once the writer has rejected
+            // and logged it. Any other failure keeps it uncommitted and stalls the partition
+            stored.whenComplete((ignored, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                if (cause == null || cause instanceof EventRejectedException) {
+                    offsets.completed(offset);
+                } else if (running && !offsets.isRevoked()) {
+                    stall(partition, offset, cause);
+                } else {
+                    log.warn("Service C: Record {} at offset {} not stored: {}", partition, offset, cause.toString());
+                }
+                inFlight.decrementAndGet();
+            });
+        });
+    }
+
+    private void stall(TopicPartition partition, long offset, Throwable cause) {
+        if (stalled.putIfAbsent(partition, offset) == null) {
+            log.error("Service C: Record {} at offset {} not stored, stalling the partition until it is reassigned",
+                partition, offset, cause);
+            toStall.add(partition);
+        } else {
+            log.warn("Service C: Record {} at offset {} not stored: {}", partition, offset, cause.toString());
+        }
+    }
+
+    private void pauseStalled() {
+        TopicPartition partition;
+        while ((partition = toStall.poll()) != null) {
+            Long offset = stalled.get(partition);
+            if (offset == null || !consumer.assignment().contains(partition)) {
+                continue;
+            }
+            // Records fetched past the failed one are not returned again while it is paused
+            consumer.pause(List.of(partition));
+            consumer.seek(partition, offset);
+        }
+    }
+
+    private void applyBackpressure() {
+        int pending = inFlight.get();
+        if (!paused && pending >= maxInFlight) {
+            consumer.pause(consumer.assignment());
+            paused = true;
+            log.debug("Service C: Paused consumption with {} records in flight", pending);
+        } else if (paused && pending <= maxInFlight / 2) {
+            List<TopicPartition> resumable = consumer.assignment().stream()
+                .filter(partition -> !stalled.containsKey(partition))
+                .toList();
+            consumer.resume(resumable);
+            paused = false;
+            log.debug("Service C: Resumed consumption with {} records in flight", pending);
+        }
+    }
+
+    private void commitAsync() {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        partitions.forEach((partition, offsets) -> {
+            long position = offsets.committable();
+            if (position >= 0) {
+                commits.put(partition, new OffsetAndMetadata(position));
+            }
+        });
+        if (!commits.isEmpty()) {
+            consumer.commitAsync(commits, (committed, error) -> {
+                if (error != null) {
+                    // A later commit covers the same offsets
+                    log.warn("Service C: Offset commit failed: {}", error.toString());
+                }
+            });
+        }
+    }
+
+    private void commitSync(Collection<TopicPartition> toCommit) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition partition : toCommit) {
+            PartitionOffsets offsets = partitions.get(partition);
+            long position = offsets != null ? offsets.position() : -1;
+            if (position >= 0) {
+                commits.put(partition, new OffsetAndMetadata(position));
+            }
+        }
+        if (commits.isEmpty()) {
+            return;
+        }
+        try {
+            consumer.commitSync(commits, COMMIT_TIMEOUT);
+        } catch (RuntimeException e) {
+            log.warn("Service C: Offset commit for {} failed: {}", commits.keySet(), e.toString());
+        }
+    }
+
+    private void drainWorkers() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        try {
+            for (ExecutorService lane : lanes) {
+                if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExecutorService lane : lanes) {
+            // Interrupted records are not completed and will be consumed again
+            lane.shutdownNow();
+        }
+        // Records handed to the writer complete when their batch is committed
+        try {
+            while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+        // Called on the poll thread. Queued records of these partitions are dropped; everything
+        // from the lowest unfinished offset onwards goes to the next owner.
+        for (TopicPartition partition : revoked) {
+            PartitionOffsets offsets = partitions.get(partition);
+            if (offsets != null) {
+                offsets.revoke();
+            }
+        }
+        commitSync(revoked);
+        revoked.forEach(partitions::remove);
+        revoked.forEach(stalled::remove);
+        consumerMetrics.onPartitionsRevokedAfterCommit(consumer, revoked);
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> lost) {
+        // Already owned by another consumer, so nothing can be committed
+        for (TopicPartition partition : lost) {
+            PartitionOffsets offsets = partitions.remove(partition);
+            if (offsets != null) {
+                offsets.revoke();
+            }
+            stalled.remove(partition);
+        }
+        consumerMetrics.onPartitionsLost(consumer, lost);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> assigned) {
+        for (TopicPartition partition : assigned) {
+            partitions.put(partition, new PartitionOffsets());
+        }
+        if (paused) {
+            consumer.pause(assigned);
+        }
+        consumerMetrics.onPartitionsAssigned(consumer, assigned);
+    }
+}
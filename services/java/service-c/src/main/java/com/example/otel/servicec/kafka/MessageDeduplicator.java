@@ -0,0 +1,133 @@
+package com.example.otel.servicec.kafka;
+
+import com.example.otel.servicec.event.ServiceEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Skips {@code service-events} whose message id was already processed by this pod, such as
+ * records redelivered after a rebalance.
+ *
+ * <p>Ids are remembered in a {@link WindowedBloomFilter} of fixed size, and only once processing
+ * has succeeded, so a record that was dropped or failed is not mistaken for a duplicate. A Bloom
+ * filter can report an id it has never seen; the estimated rate is published as
+ * {@code kafka_dedupe_false_positive_rate} next to {@code kafka_dedupe_memory_bytes}, and is
+ * governed by {@code kafka.dedupe.false-positive-rate} as long as the window holds no more than
+ * {@code kafka.dedupe.capacity} ids.
+ *
+ * <p>Where the service keeps processed ids durably, it provides a {@link ProcessedIds} bean and a
+ * filter hit is only a candidate: the record is skipped only if that exact lookup confirms the id.
+ * A hit the lookup does not confirm is a false positive, counted as {@code result=false_positive}
+ * and processed like a unique record. Without such a bean a hit is skipped as a duplicate.
+ */
+@Slf4j
+@Component
+public class MessageDeduplicator implements RecordFilterStrategy<String, ServiceEvent> {
+
+    /** Exact record of processed message ids, consulted when the filter reports a hit. */
+    @FunctionalInterface
+    public interface ProcessedIds {
+
+        boolean contains(UUID messageId);
+    }
+
+    private static final String GROUP = "service-c-group";
+
+    private final boolean enabled;
+    private final WindowedBloomFilter filter;
+    private final ProcessedIds processedIds;
+    private final Counter unique;
+    private final Counter duplicates;
+    private final Counter falsePositives;
+
+    public MessageDeduplicator(MeterRegistry meterRegistry,
+                               ObjectProvider<ProcessedIds> processedIds,
+                               @Value("${kafka.dedupe.enabled:true}") boolean enabled,
+                               @Value("${kafka.dedupe.capacity:1000000}") int capacity,
+                               @Value("${kafka.dedupe.false-positive-rate:0.000001}") double falsePositiveRate,
+                               @Value("${kafka.dedupe.window:10m}") Duration window) {
+        this.enabled = enabled;
+        this.filter = new WindowedBloomFilter(capacity, falsePositiveRate, window.toNanos());
+        this.processedIds = processedIds.getIfAvailable();
+        this.unique = Counter.builder("kafka.dedupe.records")
+            .tag("group", GROUP)
+            .tag("result", "unique")
+            .register(meterRegistry);
+        this.duplicates = Counter.builder("kafka.dedupe.records")
+            .tag("group", GROUP)
+            .tag("result", "duplicate")
+            .register(meterRegistry);
+        this.falsePositives = Counter.builder("kafka.dedupe.records")
+            .tag("group", GROUP)
+            .tag("result", "false_positive")
+            .register(meterRegistry);
+        Gauge.builder("kafka.dedupe.false.positive.rate", filter, WindowedBloomFilter::falsePositiveRate)
+            .description("Estimated probability that a new message id is taken for a duplicate")
+            .tag("group", GROUP)
+            .register(meterRegistry);
+        Gauge.builder("kafka.dedupe.memory", filter, WindowedBloomFilter::memoryBytes)
+            .description("Memory held by the dedupe filter")
+            .baseUnit("bytes")
+            .tag("group", GROUP)
+            .register(meterRegistry);
+        Gauge.builder("kafka.dedupe.ids", filter, WindowedBloomFilter::size)
+            .description("Message ids remembered in the current window")
+            .tag("group", GROUP)
+            .register(meterRegistry);
+        if (enabled) {
+            log.info("Service C: Deduplicating message ids, {} per generation at p={}, window {}, {} KB, hits {}",
+                capacity, falsePositiveRate, window, filter.memoryBytes() / 1024,
+                this.processedIds != null ? "confirmed by exact lookup" : "skipped");
+        }
+    }
+
+    public boolean isDuplicate(ServiceEvent event) {
+        if (!enabled || event == null) {
+            return false;
+        }
+        if (!filter.mightContain(event.messageId())) {
+            unique.increment();
+            return false;
+        }
+        if (processedIds != null && !confirmed(event.messageId())) {
+            falsePositives.increment();
+            log.debug("Service C: Filter hit for unprocessed message {}, processing it", event.messageId());
+            return false;
+        }
+        duplicates.increment();
+        log.debug("Service C: Skipping duplicate message {}", event.messageId());
+        return true;
+    }
+
+    private boolean confirmed(UUID messageId) {
+        try {
+            return processedIds.contains(messageId);
+        } catch (RuntimeException e) {
+            // Processing a copy again is cheaper than losing a new event
+            log.warn("Service C: Could not look up message {}, processing it: {}", messageId, e.toString());
+            return false;
+        }
+    }
+
+    /** Remembers a message id once its event has been processed successfully. */
+    public void processed(ServiceEvent event) {
+        if (enabled) {
+            filter.add(event.messageId());
+        }
+    }
+
+    @Override
+    public boolean filter(ConsumerRecord<String, ServiceEvent> record) {
+        return isDuplicate(record.value());
+    }
+}
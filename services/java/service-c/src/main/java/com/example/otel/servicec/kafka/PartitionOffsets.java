@@ -0,0 +1,57 @@
+package com.example.otel.servicec.kafka;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Offsets of one partition that were dispatched but have not finished processing.
+ *
+ * <p>Records finish out of order, so the committable position is the lowest offset still in
+ * flight, or one past the highest dispatched offset once nothing is in flight. Everything below
+ * that position has been processed. {@link #dispatched} and {@link #committable} are called from
+ * the consumer thread only; {@link #completed} from any worker. A record that is skipped or
+ * interrupted, or fails to be stored, is never completed, so the position cannot move past it.
+ */
+class PartitionOffsets {
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private volatile boolean revoked;
+    private long nextOffset = -1;
+    private long committed = -1;
+
+    void dispatched(long offset) {
+        inFlight.add(offset);
+        nextOffset = offset + 1;
+    }
+
+    void completed(long offset) {
+        inFlight.remove(offset);
+    }
+
+    /** Marks the partition as no longer owned; its queued records are skipped instead of processed. */
+    void revoke() {
+        revoked = true;
+    }
+
+    boolean isRevoked() {
+        return revoked;
+    }
+
+    /** Returns the position to commit if it moved since the last call, otherwise -1. */
+    long committable() {
+        long position = position();
+        if (position <= committed) {
+            return -1;
+        }
+        committed = position;
+        return position;
+    }
+
+    /** Returns the first offset not yet processed, or -1 if nothing was dispatched. */
+    long position() {
+        if (nextOffset < 0) {
+            return -1;
+        }
+        Long lowest = inFlight.ceiling(Long.MIN_VALUE);
+        return lowest != null ? lowest : nextOffset;
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.otel.servicec.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Allocates memory for the {@code /memory/allocate} endpoint in 1 MB chunks, each written in full
+ * so its pages are resident:
+ * <ul>
+ *   <li>{@code heap}: {@code byte[]} chunks, as before.</li>
+ *   <li>{@code direct}: direct {@link ByteBuffer}s, counted in the {@code direct} buffer pool and
+ *       limited by {@code -XX:MaxDirectMemorySize}. Freed once the GC collects the buffers.</li>
+ *   <li>{@code segment}: native memory from a confined {@code java.lang.foreign.Arena}, freed as
+ *       soon as the arena is closed.</li>
+ *   <li>{@code mapped}: a temporary file mapped read-write. The written pages are page cache,
+ *       which a container's memory limit includes. Unmapped once the GC collects the buffers.</li>
+ * </ul>
+ *
+ * <p>The memory can be held for a while before it is released. Buffer pool and heap usage are
+ * captured before the allocation, while it is held, and after it is released.
+ */
+@Slf4j
+@Component
+public class MemoryAllocator {
+
+    public enum Mode {
+        HEAP, DIRECT, SEGMENT, MAPPED;
+
+        /** Case-insensitive lookup for request parameters. */
+        public static Optional<Mode> parse(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return Optional.of(mode);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Outcome of one allocation. {@code chunks} is lower than requested if memory ran out, in which
+     * case {@code error} says why.
+     */
+    public record Result(Mode mode, int chunks, long heldMs, long durationMs, String error,
+                         Snapshot before, Snapshot allocated, Snapshot after) {
+    }
+
+    /** Heap, buffer pool and process memory at one point in time; -1 where unavailable. */
+    public record Snapshot(long heapUsedBytes, long directBytes, long directCount,
+                           long mappedBytes, long mappedCount, long rssBytes) {
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("heapUsedBytes", heapUsedBytes);
+            map.put("directBytes", directBytes);
+            map.put("directCount", directCount);
+            map.put("mappedBytes", mappedBytes);
+            map.put("mappedCount", mappedCount);
+            map.put("rssBytes", rssBytes);
+            return map;
+        }
+    }
+
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+
+    private final Path mappedDir;
+
+    public MemoryAllocator(@Value("${memory.allocate.mapped-dir:${java.io.tmpdir}}") Path mappedDir) {
+        this.mappedDir = mappedDir;
+    }
+
+    public static boolean segmentsSupported() {
+        return ForeignMemory.SUPPORTED;
+    }
+
+    public Result allocate(Mode mode, int sizeMb, long holdMs) throws InterruptedException {
+        Snapshot before = snapshot();
+        long startTime = System.nanoTime();
+        try (Allocation allocation = open(mode)) {
+            String error = null;
+            int chunks = 0;
+            try {
+                for (; chunks < sizeMb; chunks++) {
+                    allocation.addChunk();
+                }
+            } catch (OutOfMemoryError | InternalError | UncheckedIOException e) {
+                // Heap or direct memory exhausted, or no space left for the mapped file
+                error = e.getMessage() != null ? e.getMessage() : e.toString();
+                log.warn("Memory: {} allocation stopped after {}MB: {}", mode, chunks, error);
+            }
+            long duration = (System.nanoTime() - startTime) / 1_000_000;
+
+            Snapshot allocated = snapshot();
+            if (holdMs > 0) {
+                Thread.sleep(holdMs);
+            }
+            allocation.close();
+            return new Result(mode, chunks, holdMs, duration, error, before, allocated, snapshot());
+        }
+    }
+
+    public Snapshot snapshot() {
+        long directBytes = -1;
+        long directCount = -1;
+        long mappedBytes = -1;
+        long mappedCount = -1;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                directBytes = pool.getMemoryUsed();
+                directCount = pool.getCount();
+            } else if (pool.getName().equals("mapped")) {
+                mappedBytes = pool.getMemoryUsed();
+                mappedCount = pool.getCount();
+            }
+        }
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return new Snapshot(heapUsed, directBytes, directCount, mappedBytes, mappedCount, residentBytes());
+    }
+
+    /** Resident set size from {@code /proc}; a container's memory limit counts this plus page cache. */
+    private static long residentBytes() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux
+        }
+        return -1;
+    }
+
+    private Allocation open(Mode mode) {
+        return switch (mode) {
+            case HEAP -> new HeapAllocation();
+            case DIRECT -> new DirectAllocation();
+            case SEGMENT -> new SegmentAllocation();
+            case MAPPED -> new MappedAllocation(mappedDir);
+        };
+    }
+
+    /** The chunks of one allocation, kept reachable until closed. */
+    private abstract static class Allocation implements AutoCloseable {
+
+        /** Allocates the next chunk and writes all of it. */
+        abstract void addChunk();
+
+        @Override
+        public abstract void close();
+    }
+
+    private static final class HeapAllocation extends Allocation {
+
+        private final List<byte[]> chunks = new ArrayList<>();
+
+        @Override
+        void addChunk() {
+            byte[] chunk = new byte[CHUNK_BYTES];
+            ThreadLocalRandom.current().nextBytes(chunk);
+            chunks.add(chunk);
+        }
+
+        @Override
+        public void close() {
+            chunks.clear();
+        }
+    }
+
+    /** Chunks outside the heap, each a {@link ByteBuffer} filled from one random template. */
+    private abstract static class BufferAllocation extends Allocation {
+
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+        private byte[] template;
+
+        abstract ByteBuffer nextBuffer();
+
+        @Override
+        final void addChunk() {
+            if (template == null) {
+                // Random content, so nothing below the JVM can share or compress the pages
+                template = new byte[CHUNK_BYTES];
+                ThreadLocalRandom.current().nextBytes(template);
+            }
+            ByteBuffer buffer = nextBuffer();
+            buffers.add(buffer);
+            buffer.put(template);
+        }
+
+        @Override
+        public void close() {
+            buffers.clear();
+        }
+    }
+
+    private static final class DirectAllocation extends BufferAllocation {
+
+        @Override
+        ByteBuffer nextBuffer() {
+            return ByteBuffer.allocateDirect(CHUNK_BYTES);
+        }
+    }
+
+    private static final class SegmentAllocation extends BufferAllocation {
+
+        private Object arena;
+
+        @Override
+        ByteBuffer nextBuffer() {
+            if (arena == null) {
+                arena = ForeignMemory.openArena();
+            }
+            return ForeignMemory.allocate(arena, CHUNK_BYTES);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (arena != null) {
+                // Frees the native memory now, without waiting for a GC
+                ForeignMemory.close(arena);
+                arena = null;
+            }
+        }
+    }
+
+    private static final class MappedAllocation extends BufferAllocation {
+
+        private final Path dir;
+        private FileChannel channel;
+        private long size;
+
+        MappedAllocation(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        ByteBuffer nextBuffer() {
+            try {
+                if (channel == null) {
+                    Path file = Files.createTempFile(dir, "memory-allocate-", ".bin");
+                    // The file is unlinked on close; existing mappings stay valid until unmapped
+                    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+                }
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, size, CHUNK_BYTES);
+                size += CHUNK_BYTES;
+                return buffer;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("Memory: Could not close mapped file: {}", e.toString());
+                }
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * {@code java.lang.foreign} is a preview API in JDK 21 and final from JDK 22, so it is bound
+     * through method handles instead of being compiled against.
+     */
+    private static final class ForeignMemory {
+
+        static final boolean SUPPORTED;
+        private static final MethodHandle OF_CONFINED;
+        private static final MethodHandle ALLOCATE;
+        private static final MethodHandle AS_BYTE_BUFFER;
+        private static final MethodHandle CLOSE;
+
+        static {
+            MethodHandle ofConfined = null;
+            MethodHandle allocate = null;
+            MethodHandle asByteBuffer = null;
+            MethodHandle close = null;
+            try {
+                Class<?> arena = Class.forName("java.lang.foreign.Arena");
+                Class<?> segment = Class.forName("java.lang.foreign.MemorySegment");
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                ofConfined = lookup.findStatic(arena, "ofConfined", MethodType.methodType(arena));
+                allocate = lookup.findVirtual(arena, "allocate", MethodType.methodType(segment, long.class, long.class));
+                asByteBuffer = lookup.findVirtual(segment, "asByteBuffer", MethodType.methodType(ByteBuffer.class));
+                close = lookup.findVirtual(arena, "close", MethodType.methodType(void.class));
+            } catch (ReflectiveOperationException e) {
+                ofConfined = null;
+            }
+            SUPPORTED = ofConfined != null;
+            OF_CONFINED = ofConfined;
+            ALLOCATE = allocate;
+            AS_BYTE_BUFFER = asByteBuffer;
+            CLOSE = close;
+        }
+
+        static Object openArena() {
+            try {
+                return OF_CONFINED.invoke();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        static ByteBuffer allocate(Object arena, long bytes) {
+            try {
+                // Page-aligned, like the other modes' chunks
+                Object segment = ALLOCATE.invoke(arena, bytes, 4096L);
+                return (ByteBuffer) AS_BYTE_BUFFER.invoke(segment);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        static void close(Object arena) {
+            try {
+                CLOSE.invoke(arena);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        private static RuntimeException rethrow(Throwable e) {
+            if (e instanceof RuntimeException runtime) {
+                return runtime;
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+            return new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.otel.servicec.projection;
+
+import com.example.otel.servicec.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of an {@link Order} row. Loaded with plain JDBC, so it never enters
+ * the persistence context and is safe to share from the entity cache.
+ */
+public record OrderView(Long id,
+                        String orderNumber,
+                        Long userId,
+                        BigDecimal amount,
+                        String status,
+                        Integer itemsCount,
+                        LocalDateTime createdAt,
+                        LocalDateTime updatedAt) {
+
+    public static OrderView from(Order order) {
+        return new OrderView(order.getId(), order.getOrderNumber(), order.getUserId(), order.getAmount(),
+            order.getStatus(), order.getItemsCount(), order.getCreatedAt(), order.getUpdatedAt());
+    }
+}
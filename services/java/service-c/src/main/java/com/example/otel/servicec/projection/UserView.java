@@ -0,0 +1,22 @@
+package com.example.otel.servicec.projection;
+
+import com.example.otel.servicec.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a {@link User} row. Loaded with plain JDBC, so it never enters
+ * the persistence context and is safe to share from the entity cache.
+ */
+public record UserView(Long id,
+                       String username,
+                       String email,
+                       String status,
+                       LocalDateTime createdAt,
+                       LocalDateTime updatedAt) {
+
+    public static UserView from(User user) {
+        return new UserView(user.getId(), user.getUsername(), user.getEmail(), user.getStatus(),
+            user.getCreatedAt(), user.getUpdatedAt());
+    }
+}
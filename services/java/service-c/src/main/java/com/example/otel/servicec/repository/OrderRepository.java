@@ -1,6 +1,7 @@
 package com.example.otel.servicec.repository;
 
 import com.example.otel.servicec.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,7 +9,10 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderViewRepository {
     Optional<Order> findByOrderNumber(String orderNumber);
     List<Order> findByUserId(Long userId);
+
+    // Keyset page: rows after the cursor id, in id order
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 }
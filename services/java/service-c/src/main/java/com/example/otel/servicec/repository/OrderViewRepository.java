@@ -0,0 +1,19 @@
+package com.example.otel.servicec.repository;
+
+import com.example.otel.servicec.projection.OrderView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only lookups that return {@link OrderView} records instead of managed entities.
+ * Mixed into {@link OrderRepository}; implemented by {@link OrderViewRepositoryImpl}.
+ */
+public interface OrderViewRepository {
+
+    Optional<OrderView> findViewById(Long id);
+
+    /** Returns the rows that exist, in no particular order. */
+    List<OrderView> findViewsByIdIn(Collection<Long> ids);
+}
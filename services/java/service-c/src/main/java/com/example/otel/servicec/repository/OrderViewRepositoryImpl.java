@@ -0,0 +1,47 @@
+package com.example.otel.servicec.repository;
+
+import com.example.otel.servicec.projection.OrderView;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.otel.servicec.repository.UserViewRepositoryImpl.toLocalDateTime;
+
+/**
+ * Maps rows straight to {@link OrderView} with plain JDBC, like {@link UserViewRepositoryImpl}.
+ */
+class OrderViewRepositoryImpl implements OrderViewRepository {
+
+    private static final String SELECT =
+        "SELECT id, order_number, user_id, amount, status, items_count, created_at, updated_at FROM orders ";
+
+    private static final RowMapper<OrderView> ROW_MAPPER = (rs, rowNum) -> new OrderView(
+        rs.getLong(1),
+        rs.getString(2),
+        rs.getLong(3),
+        rs.getBigDecimal(4),
+        rs.getString(5),
+        rs.getInt(6),
+        toLocalDateTime(rs.getTimestamp(7)),
+        toLocalDateTime(rs.getTimestamp(8)));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    OrderViewRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<OrderView> findViewById(Long id) {
+        List<OrderView> rows = jdbcTemplate.query(SELECT + "WHERE id = ?", ROW_MAPPER, id);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    @Override
+    public List<OrderView> findViewsByIdIn(Collection<Long> ids) {
+        return jdbcTemplate.query(SELECT + "WHERE id = ANY (?)", ROW_MAPPER, (Object) ids.toArray(new Long[0]));
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.otel.servicec.repository;
 
 import com.example.otel.servicec.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserViewRepository {
     Optional<User> findByUsername(String username);
+
+    // Keyset page: rows after the cursor id, in id order
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 }
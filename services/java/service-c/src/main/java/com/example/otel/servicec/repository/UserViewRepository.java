@@ -0,0 +1,19 @@
+package com.example.otel.servicec.repository;
+
+import com.example.otel.servicec.projection.UserView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only lookups that return {@link UserView} records instead of managed entities.
+ * Mixed into {@link UserRepository}; implemented by {@link UserViewRepositoryImpl}.
+ */
+public interface UserViewRepository {
+
+    Optional<UserView> findViewById(Long id);
+
+    /** Returns the rows that exist, in no particular order. */
+    List<UserView> findViewsByIdIn(Collection<Long> ids);
+}
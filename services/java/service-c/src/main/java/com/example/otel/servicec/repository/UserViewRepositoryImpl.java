@@ -0,0 +1,52 @@
+package com.example.otel.servicec.repository;
+
+import com.example.otel.servicec.projection.UserView;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maps rows straight to {@link UserView} with plain JDBC. Nothing enters a persistence context,
+ * so there is no entity snapshot, proxy or flush check per row. Each lookup is a single
+ * statement in auto-commit, which is already a consistent read without a surrounding transaction.
+ */
+class UserViewRepositoryImpl implements UserViewRepository {
+
+    private static final String SELECT =
+        "SELECT id, username, email, status, created_at, updated_at FROM users ";
+
+    private static final RowMapper<UserView> ROW_MAPPER = (rs, rowNum) -> new UserView(
+        rs.getLong(1),
+        rs.getString(2),
+        rs.getString(3),
+        rs.getString(4),
+        toLocalDateTime(rs.getTimestamp(5)),
+        toLocalDateTime(rs.getTimestamp(6)));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserViewRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<UserView> findViewById(Long id) {
+        List<UserView> rows = jdbcTemplate.query(SELECT + "WHERE id = ?", ROW_MAPPER, id);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    @Override
+    public List<UserView> findViewsByIdIn(Collection<Long> ids) {
+        // One array parameter keeps the statement text constant for any batch size
+        return jdbcTemplate.query(SELECT + "WHERE id = ANY (?)", ROW_MAPPER, (Object) ids.toArray(new Long[0]));
+    }
+
+    static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.otel.servicec.stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Streams the users and orders tables as newline-delimited JSON.
+ *
+ * <p>Rows are read through a server-side cursor ({@code fetch-size} rows per round trip, which
+ * PostgreSQL only honours inside a transaction) and written straight to the response with a
+ * single {@link JsonGenerator}. Nothing is collected in memory, so heap use does not depend on
+ * table size.
+ */
+@Component
+public class NdjsonExporter {
+
+    private static final String USERS_SQL =
+        "SELECT id, username, email, status, created_at, updated_at FROM users WHERE id > ? ORDER BY id";
+
+    private static final String ORDERS_SQL =
+        "SELECT id, order_number, user_id, amount, status, items_count, created_at, updated_at "
+            + "FROM orders WHERE id > ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public NdjsonExporter(DataSource dataSource,
+                          PlatformTransactionManager transactionManager,
+                          ObjectMapper objectMapper,
+                          @Value("${data.stream.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public long streamUsers(long afterId, OutputStream out) throws IOException {
+        return stream(USERS_SQL, afterId, out, (rs, json) -> {
+            json.writeNumberField("id", rs.getLong(1));
+            json.writeStringField("username", rs.getString(2));
+            json.writeStringField("email", rs.getString(3));
+            json.writeStringField("status", rs.getString(4));
+            writeTimestamp(json, "createdAt", rs.getTimestamp(5));
+            writeTimestamp(json, "updatedAt", rs.getTimestamp(6));
+        });
+    }
+
+    public long streamOrders(long afterId, OutputStream out) throws IOException {
+        return stream(ORDERS_SQL, afterId, out, (rs, json) -> {
+            json.writeNumberField("id", rs.getLong(1));
+            json.writeStringField("orderNumber", rs.getString(2));
+            json.writeNumberField("userId", rs.getLong(3));
+            json.writeNumberField("amount", rs.getBigDecimal(4));
+            json.writeStringField("status", rs.getString(5));
+            json.writeNumberField("itemsCount", rs.getInt(6));
+            writeTimestamp(json, "createdAt", rs.getTimestamp(7));
+            writeTimestamp(json, "updatedAt", rs.getTimestamp(8));
+        });
+    }
+
+    private long stream(String sql, long afterId, OutputStream out, RowWriter rowWriter) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+
+            long[] rows = {0};
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query(sql, rs -> {
+                    try {
+                        json.writeStartObject();
+                        rowWriter.write(rs, json);
+                        json.writeEndObject();
+                        json.writeRaw('\n');
+                        rows[0]++;
+                    } catch (IOException e) {
+                        // Client went away; abort the query instead of reading the rest of the table
+                        throw new UncheckedIOException(e);
+                    }
+                }, afterId));
+            json.flush();
+            return rows[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeTimestamp(JsonGenerator json, String field, Timestamp value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeStringField(field, value.toLocalDateTime().toString());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs, JsonGenerator json) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.otel.servicec.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs {@link CopyIngestor} against a real PostgreSQL, so the COPY wire format, CSV quoting and
+ * the server's own errors are exercised. Skipped unless {@code INGEST_TEST_DB_URL} points at a
+ * database, e.g. {@code jdbc:postgresql://localhost:5432/demo_db}; {@code INGEST_TEST_DB_USER}
+ * and {@code INGEST_TEST_DB_PASSWORD} default to {@code postgres} and empty. The tables are
+ * created in a scratch schema, which is dropped afterwards.
+ */
+@EnabledIfEnvironmentVariable(named = "INGEST_TEST_DB_URL", matches = ".+")
+class CopyIngestorPostgresTest {
+
+    private static final String SCHEMA = "copy_ingestor_test";
+
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbc;
+    private CopyIngestor ingestor;
+
+    @BeforeAll
+    static void createSchema() {
+        String user = System.getenv().getOrDefault("INGEST_TEST_DB_USER", "postgres");
+        String password = System.getenv().getOrDefault("INGEST_TEST_DB_PASSWORD", "");
+        dataSource = new SingleConnectionDataSource(System.getenv("INGEST_TEST_DB_URL"), user, password, true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("SET search_path TO " + SCHEMA);
+        // As in scripts/init-db.sql
+        jdbc.execute("CREATE TABLE users (id BIGSERIAL PRIMARY KEY, username VARCHAR(255) NOT NULL UNIQUE, "
+            + "email VARCHAR(255) NOT NULL, status VARCHAR(50) NOT NULL, "
+            + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        jdbc.execute("CREATE TABLE orders (id BIGSERIAL PRIMARY KEY, order_number VARCHAR(255) NOT NULL UNIQUE, "
+            + "user_id BIGINT NOT NULL, amount NUMERIC(10, 2) NOT NULL, status VARCHAR(50) NOT NULL, "
+            + "items_count INTEGER NOT NULL, created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (jdbc != null) {
+            jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            dataSource.destroy();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc.execute("TRUNCATE orders, users RESTART IDENTITY");
+        ingestor = new CopyIngestor(dataSource, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void storesQuotedFieldsAsTheServerParsesThem() {
+        IngestResult result = ingestor.copyOrders(csv(
+            "order_number,user_id,amount,status,items_count\r\n"
+                + "\"ORD-1, rush\",42,19.99,pending,3\r\n"
+                + "\"ORD-\"\"2\"\"\",7,0.5,\"shipped\",1\r\n"
+                + "ORD-3 été,7,12345678.90,\"on hold\",0\n"), true);
+
+        assertThat(result.rows()).isEqualTo(3);
+        List<Map<String, Object>> rows = jdbc.queryForList(
+            "SELECT order_number, user_id, amount, status, items_count, created_at = updated_at AS same_time "
+                + "FROM orders ORDER BY id");
+        assertThat(rows).extracting(row -> row.get("order_number"))
+            .containsExactly("ORD-1, rush", "ORD-\"2\"", "ORD-3 été");
+        assertThat(rows).extracting(row -> row.get("amount"))
+            .containsExactly(new BigDecimal("19.99"), new BigDecimal("0.50"), new BigDecimal("12345678.90"));
+        assertThat(rows).extracting(row -> row.get("status")).containsExactly("pending", "shipped", "on hold");
+        assertThat(rows).extracting(row -> row.get("same_time")).containsOnly(true);
+    }
+
+    @Test
+    void serverErrorDiscardsTheWholeLoad() {
+        // Passes validation, fails on the unique order_number in the server
+        assertThatThrownBy(() -> ingestor.copyOrders(csv(
+            "ORD-1,1,1.00,pending,1\nORD-2,1,1.00,pending,1\nORD-1,1,1.00,pending,1\n"), false))
+            .isInstanceOf(IngestException.class)
+            .hasMessageContaining("orders_order_number_key");
+
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM orders", Long.class)).isZero();
+    }
+
+    @Test
+    void invalidRowAfterChunksWereSentCancelsTheCopy() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            body.append("user-").append(i).append(",user").append(i).append("@example.com,active\n");
+        }
+        body.append("broken,,active\n");
+
+        assertThatThrownBy(() -> ingestor.copyUsers(csv(body.toString()), false))
+            .isInstanceOf(IngestException.class)
+            .hasMessage("Line 5001: email is required");
+
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM users", Long.class)).isZero();
+        // The connection is usable again after the cancelled COPY
+        assertThat(ingestor.copyUsers(csv("jane,jane@example.com,active\n"), false).rows()).isEqualTo(1);
+    }
+
+    private static InputStream csv(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
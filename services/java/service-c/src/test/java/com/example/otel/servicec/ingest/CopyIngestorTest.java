@@ -0,0 +1,152 @@
+package com.example.otel.servicec.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CopyIngestorTest {
+
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    private final CopyIn copyIn = mock(CopyIn.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CopyIngestor ingestor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        doAnswer(invocation -> {
+            byte[] bytes = invocation.getArgument(0);
+            copied.write(bytes, invocation.<Integer>getArgument(1), invocation.<Integer>getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.endCopy()).thenAnswer(invocation -> (long) copiedLines().length);
+        // Active until the copy is ended, so a failed load must cancel it
+        when(copyIn.isActive()).thenReturn(true);
+
+        ingestor = new CopyIngestor(dataSource, meterRegistry);
+    }
+
+    @Test
+    void forwardsQuotedRowsUnchangedWithTimestamps() {
+        IngestResult result = ingestor.copyOrders(csv(
+            "order_number,user_id,amount,status,items_count\n"
+                + "\"ORD-1, rush\",42,19.99,pending,3\n"
+                + "\n"
+                + "\"ORD-\"\"2\"\"\",7,0.5,\"shipped\",1\n"), true);
+
+        assertThat(result.rows()).isEqualTo(2);
+        String[] lines = copiedLines();
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("\"ORD-1, rush\",42,19.99,pending,3,");
+        assertThat(lines[1]).startsWith("\"ORD-\"\"2\"\"\",7,0.5,\"shipped\",1,");
+        // created_at and updated_at get the same load time
+        String[] timestamps = lines[0].substring("\"ORD-1, rush\",42,19.99,pending,3,".length()).split(",");
+        assertThat(timestamps).hasSize(2);
+        assertThat(timestamps[0]).isEqualTo(timestamps[1]);
+        assertThat(meterRegistry.get("ingest.rows").tag("table", "orders").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void copiesUsers() {
+        IngestResult result = ingestor.copyUsers(csv("jane,\"jane@example.com\",active\n"), false);
+
+        assertThat(result.rows()).isEqualTo(1);
+        assertThat(copiedLines()[0]).startsWith("jane,\"jane@example.com\",active,");
+    }
+
+    @Test
+    void rejectsRowWithMissingColumns() throws Exception {
+        assertRejected(ingestor::copyOrders, "ORD-1,42,19.99,pending,3\nORD-2,42,19.99\n",
+            "Line 2: expected 5 columns, got 3");
+    }
+
+    @Test
+    void rejectsQuotedFieldSpanningLines() throws Exception {
+        assertRejected(ingestor::copyOrders, "\"ORD-1\nsecond line\",42,19.99,pending,3\n",
+            "Line 1: unterminated quoted field");
+    }
+
+    @Test
+    void rejectsInvalidNumbers() throws Exception {
+        assertRejected(ingestor::copyOrders, "ORD-1,forty-two,19.99,pending,3\n", "Line 1: invalid number");
+    }
+
+    @Test
+    void rejectsAmountOutsideNumericColumn() throws Exception {
+        assertRejected(ingestor::copyOrders, "ORD-1,42,123456789.00,pending,3\n",
+            "Line 1: amount out of range: 123456789.00");
+        assertRejected(ingestor::copyOrders, "ORD-1,42,1.999,pending,3\n",
+            "Line 1: amount out of range: 1.999");
+    }
+
+    @Test
+    void rejectsMissingRequiredText() throws Exception {
+        assertRejected(ingestor::copyUsers, "jane,,active\n", "Line 1: email is required");
+    }
+
+    @Test
+    void rejectsLineAboveMaximumLength() throws Exception {
+        String longName = "x".repeat(CopyIngestor.MAX_LINE_LENGTH);
+        assertRejected(ingestor::copyUsers, "jane,jane@example.com,active\r\n" + longName + ",a@example.com,active\r\n",
+            "Line 2: longer than " + CopyIngestor.MAX_LINE_LENGTH + " characters");
+    }
+
+    @Test
+    void countsLinesAfterHeader() throws Exception {
+        assertRejected((csv, header) -> ingestor.copyUsers(csv, true),
+            "username,email,status\njane,jane@example.com,active\n\nbob,bob@example.com,\n",
+            "Line 4: status is required");
+    }
+
+    private void assertRejected(Ingest ingest, String body, String message) throws Exception {
+        assertThatThrownBy(() -> ingest.run(csv(body), false))
+            .isInstanceOf(IngestException.class)
+            .hasMessageStartingWith(message);
+        // COPY is one statement: cancelling it discards every row already sent
+        verify(copyIn, never()).endCopy();
+        verify(copyIn, atLeastOnce()).cancelCopy();
+    }
+
+    private String[] copiedLines() {
+        String text = copied.toString(StandardCharsets.UTF_8);
+        return text.isEmpty() ? new String[0] : text.split("\n");
+    }
+
+    private static InputStream csv(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @FunctionalInterface
+    private interface Ingest {
+        IngestResult run(InputStream csv, boolean header);
+    }
+}
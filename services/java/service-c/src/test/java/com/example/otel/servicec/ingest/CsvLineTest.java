@@ -0,0 +1,57 @@
+package com.example.otel.servicec.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvLineTest {
+
+    private final String[] fields = new String[5];
+
+    @Test
+    void splitsPlainFields() {
+        assertThat(CsvLine.split("ORD-1,42,19.99,pending,3", fields, 1)).isEqualTo(5);
+        assertThat(fields).containsExactly("ORD-1", "42", "19.99", "pending", "3");
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertThat(CsvLine.split(",b,,", fields, 1)).isEqualTo(4);
+        assertThat(fields).startsWith("", "b", "", "");
+    }
+
+    @Test
+    void quotedFieldsMayContainDelimitersAndQuotes() {
+        assertThat(CsvLine.split("\"a,b\",\"say \"\"hi\"\"\",\"\",c", fields, 1)).isEqualTo(4);
+        assertThat(fields).startsWith("a,b", "say \"hi\"", "", "c");
+    }
+
+    @Test
+    void quotedFieldAtEndOfLine() {
+        assertThat(CsvLine.split("a,\"b,c\"", fields, 1)).isEqualTo(2);
+        assertThat(fields).startsWith("a", "b,c");
+    }
+
+    @Test
+    void rejectsTooManyColumns() {
+        assertThatThrownBy(() -> CsvLine.split("1,2,3,4,5,6", fields, 7))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Line 7: too many columns");
+    }
+
+    @Test
+    void rejectsQuotedFieldSpanningLines() {
+        // The reader hands over one physical line, so an embedded newline leaves the quote open
+        assertThatThrownBy(() -> CsvLine.split("ORD-1,\"first line", fields, 3))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Line 3: unterminated quoted field");
+    }
+
+    @Test
+    void rejectsTextAfterClosingQuote() {
+        assertThatThrownBy(() -> CsvLine.split("\"a\"b,c", fields, 2))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Line 2: unexpected text after quoted field");
+    }
+}
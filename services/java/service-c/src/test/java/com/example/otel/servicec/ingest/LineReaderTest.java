@@ -0,0 +1,50 @@
+package com.example.otel.servicec.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LineReaderTest {
+
+    @Test
+    void readsLfAndCrLfLinesAndAFinalLineWithoutTerminator() throws Exception {
+        LineReader reader = new LineReader(new StringReader("a,b\r\n\nc\nlast"), 10);
+
+        assertThat(reader.readLine(1)).isEqualTo("a,b");
+        assertThat(reader.readLine(2)).isEmpty();
+        assertThat(reader.readLine(3)).isEqualTo("c");
+        assertThat(reader.readLine(4)).isEqualTo("last");
+        assertThat(reader.readLine(5)).isNull();
+    }
+
+    @Test
+    void acceptsLinesOfExactlyTheMaximumAcrossBufferBoundaries() throws Exception {
+        String line = "y".repeat(20_000);
+        LineReader reader = new LineReader(new StringReader(line + "\r\n" + line), line.length());
+
+        assertThat(reader.readLine(1)).isEqualTo(line);
+        assertThat(reader.readLine(2)).isEqualTo(line);
+        assertThat(reader.readLine(3)).isNull();
+    }
+
+    @Test
+    void rejectsLongerLinesWithoutReadingThemWhole() {
+        LineReader reader = new LineReader(new StringReader("z".repeat(1_000_000) + "\n"), 100);
+
+        assertThatThrownBy(() -> reader.readLine(7))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Line 7: longer than 100 characters");
+    }
+
+    @Test
+    void rejectsFinalLineOneCharacterTooLong() {
+        LineReader reader = new LineReader(new StringReader("abcd"), 3);
+
+        assertThatThrownBy(() -> reader.readLine(1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Line 1: longer than 3 characters");
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.otel.servicec.kafka;
+
+import com.example.otel.servicec.event.ServiceEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.sql.DataSource;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventBatchWriterTest {
+
+    private final List<String> pendingMessages = new ArrayList<>();
+    private final List<String> storedMessages = new ArrayList<>();
+    private final AtomicInteger connectionFailures = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EventBatchWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.supportsBatchUpdates()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.getConnection()).thenReturn(connection);
+        // Parameter 3 is the message
+        doAnswer(invocation -> invocation.<Integer>getArgument(0) == 3 && pendingMessages.add(invocation.getArgument(1)))
+            .when(statement).setString(anyInt(), anyString());
+        when(statement.executeBatch()).thenAnswer(invocation -> {
+            List<String> messages = new ArrayList<>(pendingMessages);
+            pendingMessages.clear();
+            if (connectionFailures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                throw new SQLException("Connection reset", "08006");
+            }
+            if (messages.stream().anyMatch(message -> message.indexOf('\u0000') >= 0)) {
+                throw new BatchUpdateException("invalid byte sequence for encoding \"UTF8\": 0x00", "22021", new int[0]);
+            }
+            storedMessages.addAll(messages);
+            return new int[messages.size()];
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        writer = new EventBatchWriter(dataSource, transactionManager, meterRegistry, 100, Duration.ofMillis(50));
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    void isolatesRowsTheDatabaseRejects() throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(writer.write(record(i, i == 5 ? "bad\u0000row" : "event-" + i)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+            .exceptionally(error -> null)
+            .get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(futures.get(i).isCompletedExceptionally()).as("event %d failed", i).isEqualTo(i == 5);
+        }
+        assertThat(futures.get(5)).failsWithin(Duration.ZERO)
+            .withThrowableOfType(Exception.class)
+            .withCauseInstanceOf(EventRejectedException.class);
+        assertThat(storedMessages).containsExactlyInAnyOrder(
+            "event-0", "event-1", "event-2", "event-3", "event-4", "event-6", "event-7");
+        assertThat(meterRegistry.get("events.store.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesTransientFailuresWithoutSplitting() throws Exception {
+        connectionFailures.set(2);
+
+        CompletableFuture<Void> first = writer.write(record(0, "event-0"));
+        CompletableFuture<Void> second = writer.write(record(1, "event-1"));
+
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThat(storedMessages).containsExactly("event-0", "event-1");
+        assertThat(meterRegistry.get("events.store.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    void classifiesSqlStates() {
+        assertThat(EventBatchWriter.isTransient(new RuntimeException(new SQLException("reset", "08006")))).isTrue();
+        assertThat(EventBatchWriter.isTransient(new SQLException("serialization", "40001"))).isTrue();
+        assertThat(EventBatchWriter.isTransient(new SQLException("shutdown", "57P01"))).isTrue();
+        assertThat(EventBatchWriter.isTransient(new SQLTransientConnectionException("pool timeout"))).isTrue();
+
+        BatchUpdateException batch = new BatchUpdateException("batch failed", "22021", new int[0]);
+        assertThat(EventBatchWriter.isTransient(new DataIntegrityViolationException("bad row", batch))).isFalse();
+        batch.setNextException(new SQLException("deadlock", "40P01"));
+        assertThat(EventBatchWriter.isTransient(batch)).isTrue();
+        assertThat(EventBatchWriter.isTransient(new IllegalStateException("no SQL cause"))).isFalse();
+    }
+
+    private static ConsumerRecord<String, ServiceEvent> record(long offset, String message) {
+        ServiceEvent event = new ServiceEvent(UUID.randomUUID(), System.currentTimeMillis(), "service-a", message);
+        return new ConsumerRecord<>("service-events", 0, offset, event.messageId().toString(), event);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.otel.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one mix entry. Two latencies are recorded per request, in
+ * nanoseconds:
+ * <ul>
+ *   <li><b>response time</b>, from the time the schedule says the request should have started.
+ *       If the generator or the connection pool fell behind, that wait is included, so a stall on
+ *       the server is charged to every request it delayed. This is the coordinated-omission
+ *       corrected figure and the one to compare against an SLO.</li>
+ *   <li><b>service time</b>, from the moment the request was actually sent. This is what a
+ *       closed-loop tool such as a curl loop reports.</li>
+ * </ul>
+ *
+ * <p>Responding threads write into lock-free {@link Recorder}s; the reporting thread drains them
+ * into the run totals at every progress interval.
+ */
+final class EndpointStats {
+
+    final String name;
+
+    private final Recorder responseTime = new Recorder(3);
+    private final Recorder serviceTime = new Recorder(3);
+    private final Histogram totalResponseTime = new Histogram(3);
+    private final Histogram totalServiceTime = new Histogram(3);
+    private Histogram responseInterval;
+    private Histogram serviceInterval;
+
+    final LongAdder success = new LongAdder();
+    final LongAdder clientErrors = new LongAdder();
+    final LongAdder serverErrors = new LongAdder();
+    final LongAdder timeouts = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    /** Records a finished request: a response, or the error the client reported. */
+    void record(long responseNanos, long serviceNanos, HttpResponse<?> response, Throwable error) {
+        responseTime.recordValue(responseNanos);
+        serviceTime.recordValue(serviceNanos);
+        if (response != null) {
+            int status = response.statusCode();
+            (status >= 500 ? serverErrors : status >= 400 ? clientErrors : success).increment();
+        } else if (error instanceof HttpTimeoutException || error.getCause() instanceof HttpTimeoutException) {
+            timeouts.increment();
+        } else {
+            failures.increment();
+        }
+    }
+
+    long completed() {
+        return success.sum() + clientErrors.sum() + serverErrors.sum() + timeouts.sum() + failures.sum();
+    }
+
+    /**
+     * Moves what was recorded since the last call into the totals and returns it as
+     * {@code [responseTime, serviceTime]}. Called from the reporting thread only.
+     */
+    Histogram[] drain() {
+        responseInterval = responseTime.getIntervalHistogram(responseInterval);
+        serviceInterval = serviceTime.getIntervalHistogram(serviceInterval);
+        totalResponseTime.add(responseInterval);
+        totalServiceTime.add(serviceInterval);
+        return new Histogram[] {responseInterval, serviceInterval};
+    }
+
+    Histogram totalResponseTime() {
+        return totalResponseTime;
+    }
+
+    Histogram totalServiceTime() {
+        return totalServiceTime;
+    }
+}
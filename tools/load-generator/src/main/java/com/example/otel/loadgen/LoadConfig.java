@@ -0,0 +1,131 @@
+package com.example.otel.loadgen;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of one run, from {@code --key=value} arguments, optionally on top of a properties
+ * file given with {@code --config=}. Every target must resolve to a loopback address: the
+ * generator only drives services started locally, or reached through {@code kubectl port-forward}.
+ */
+public record LoadConfig(double rate,
+                         Duration duration,
+                         Duration warmup,
+                         Duration timeout,
+                         int maxInFlight,
+                         Map<String, URI> targets,
+                         String mix,
+                         Path output,
+                         Duration progressInterval) {
+
+    static final String USAGE = """
+        Usage: java -jar load-generator.jar [--key=value ...]
+
+          --config=FILE           properties file with any of the keys below
+          --rate=50               requests per second, started on schedule whatever the latency
+          --duration=60s          measured run time
+          --warmup=10s            run time before measuring starts
+          --timeout=10s           per-request timeout
+          --max-in-flight=10000   requests outstanding at once; further ones are counted as dropped
+          --target.a=http://localhost:8080
+          --target.b=http://localhost:8081
+          --target.c=http://localhost:8082
+          --mix=default           bundled mix name, or a properties file of
+                                  name = weight service path, e.g. users = 10 a /api/users/{1-1000}
+          --output=load-reports   directory for the report; each run writes a timestamped subdirectory
+          --progress=10s          interval of the progress line on stdout
+        """;
+
+    public static LoadConfig parse(String[] args) throws IOException {
+        Properties properties = new Properties();
+        for (String arg : args) {
+            if (arg.startsWith("--config=")) {
+                try (Reader reader = Files.newBufferedReader(Path.of(arg.substring("--config=".length())))) {
+                    properties.load(reader);
+                }
+            }
+        }
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            properties.setProperty(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        Map<String, URI> targets = new LinkedHashMap<>();
+        targets.put("a", URI.create(properties.getProperty("target.a", "http://localhost:8080")));
+        targets.put("b", URI.create(properties.getProperty("target.b", "http://localhost:8081")));
+        targets.put("c", URI.create(properties.getProperty("target.c", "http://localhost:8082")));
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("target.")) {
+                targets.put(key.substring("target.".length()), URI.create(properties.getProperty(key)));
+            }
+        }
+        for (URI target : targets.values()) {
+            requireLoopback(target);
+        }
+
+        LoadConfig config = new LoadConfig(
+            Double.parseDouble(properties.getProperty("rate", "50")),
+            duration(properties, "duration", "60s"),
+            duration(properties, "warmup", "10s"),
+            duration(properties, "timeout", "10s"),
+            Integer.parseInt(properties.getProperty("max-in-flight", "10000")),
+            targets,
+            properties.getProperty("mix", "default"),
+            Path.of(properties.getProperty("output", "load-reports")),
+            duration(properties, "progress", "10s"));
+        if (config.rate() <= 0 || config.maxInFlight() <= 0 || config.duration().isZero()) {
+            throw new IllegalArgumentException("rate, max-in-flight and duration must be positive");
+        }
+        return config;
+    }
+
+    private static void requireLoopback(URI target) {
+        if (target.getHost() == null) {
+            throw new IllegalArgumentException("Target " + target + " has no host");
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(target.getHost());
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Target " + target + " does not resolve");
+        }
+        for (InetAddress address : addresses) {
+            if (!address.isLoopbackAddress()) {
+                throw new IllegalArgumentException("Target " + target + " is not on localhost; start the services "
+                    + "locally or use kubectl port-forward");
+            }
+        }
+    }
+
+    /** Accepts {@code 500ms}, {@code 30s}, {@code 5m} or an ISO-8601 duration. */
+    private static Duration duration(Properties properties, String key, String defaultValue) {
+        String value = properties.getProperty(key, defaultValue).trim();
+        try {
+            if (value.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+            }
+            if (value.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+            if (value.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+            return Duration.parse(value);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid duration for " + key + ": " + value);
+        }
+    }
+}
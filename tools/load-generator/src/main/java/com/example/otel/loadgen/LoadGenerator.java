@@ -0,0 +1,167 @@
+package com.example.otel.loadgen;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for service-a, service-b and service-c.
+ *
+ * <p>Requests start at a constant arrival rate whatever the latency: request {@code i} is due at
+ * {@code start + i / rate}, and a slow response does not delay the next request the way it does
+ * in a curl loop. The requests go out through the JDK's asynchronous {@link HttpClient}, with
+ * callbacks on virtual threads, so thousands can be outstanding without a thread each. Latency is
+ * measured from the due time (see {@link EndpointStats}), which corrects for coordinated omission.
+ *
+ * <p>The run starts with a warm-up that is not measured; then the report in
+ * {@code <output>/<timestamp>/} gets a summary and one HdrHistogram percentile file per entry.
+ */
+public final class LoadGenerator {
+
+    private final LoadConfig config;
+    private final RequestMix mix;
+    private final List<EndpointStats> stats = new ArrayList<>();
+    private final HttpClient client;
+    private final Semaphore inFlight;
+
+    LoadGenerator(LoadConfig config, RequestMix mix, ExecutorService callbacks) {
+        this.config = config;
+        this.mix = mix;
+        for (RequestMix.Entry entry : mix.entries()) {
+            stats.add(new EndpointStats(entry.name()));
+        }
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(config.timeout())
+            .executor(callbacks)
+            .build();
+        this.inFlight = new Semaphore(config.maxInFlight());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config;
+        RequestMix mix;
+        try {
+            config = LoadConfig.parse(args);
+            mix = RequestMix.load(config.mix(), config.targets());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try (ExecutorService callbacks = Executors.newVirtualThreadPerTaskExecutor()) {
+            LoadGenerator generator = new LoadGenerator(config, mix, callbacks);
+            Path report = generator.run();
+            System.out.println("Report written to " + report.toAbsolutePath());
+        }
+        System.exit(0);
+    }
+
+    Path run() throws IOException, InterruptedException {
+        System.out.printf("Load: %.1f req/s for %ds after %ds warm-up, %d entries in mix %s%n",
+            config.rate(), config.duration().toSeconds(), config.warmup().toSeconds(),
+            mix.entries().size(), config.mix());
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureStart = start + config.warmup().toNanos();
+        long end = measureStart + config.duration().toNanos();
+
+        Thread dispatcher = Thread.ofPlatform().name("load-dispatcher").start(() -> dispatch(start, measureStart, end));
+        Thread reporter = Thread.ofPlatform().name("load-progress").daemon().start(() -> progress(measureStart, end));
+        dispatcher.join();
+
+        // Let outstanding requests finish or time out
+        long drainDeadline = System.nanoTime() + config.timeout().toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.availablePermits() < config.maxInFlight() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        reporter.interrupt();
+        reporter.join();
+        for (EndpointStats endpoint : stats) {
+            endpoint.drain();
+        }
+        return new ReportWriter(config, stats).write();
+    }
+
+    /** Starts every request at its due time; falls behind rather than skipping when late. */
+    private void dispatch(long start, long measureStart, long end) {
+        double intervalNanos = 1e9 / config.rate();
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * intervalNanos);
+            if (due >= end) {
+                return;
+            }
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(due, due >= measureStart);
+        }
+    }
+
+    private void send(long due, boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = mix.next(random);
+        EndpointStats endpoint = stats.get(index);
+        if (!inFlight.tryAcquire()) {
+            // The generator's own limit: reported, never silently skipped
+            if (measured) {
+                endpoint.dropped.increment();
+            }
+            return;
+        }
+        URI uri = mix.entries().get(index).sample(random);
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(config.timeout()).GET().build();
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long now = System.nanoTime();
+            inFlight.release();
+            if (measured) {
+                endpoint.record(now - due, now - sent, response, error);
+            }
+        });
+    }
+
+    /** Prints one line per interval of the measured phase. */
+    private void progress(long measureStart, long end) {
+        long intervalNanos = config.progressInterval().toNanos();
+        long next = measureStart + intervalNanos;
+        try {
+            while (true) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                Histogram interval = new Histogram(3);
+                for (EndpointStats endpoint : stats) {
+                    interval.add(endpoint.drain()[0]);
+                }
+                System.out.printf("[%4ds] %8.1f req/s  in-flight %5d  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n",
+                    TimeUnit.NANOSECONDS.toSeconds(Math.min(next, end) - measureStart),
+                    interval.getTotalCount() * 1e9 / intervalNanos,
+                    config.maxInFlight() - inFlight.availablePermits(),
+                    interval.getValueAtPercentile(50) / 1e6,
+                    interval.getValueAtPercentile(99) / 1e6,
+                    interval.getMaxValue() / 1e6);
+                next += intervalNanos;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
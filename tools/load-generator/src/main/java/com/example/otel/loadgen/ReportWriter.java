@@ -0,0 +1,113 @@
+package com.example.otel.loadgen;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes a run's report into a new timestamped directory:
+ * <ul>
+ *   <li>{@code summary.txt} and {@code summary.csv}: counts and percentiles per entry, in ms</li>
+ *   <li>{@code <entry>.hgrm} and {@code <entry>.service.hgrm}: full percentile distributions of
+ *       response and service time, plus {@code all.hgrm} and {@code all.service.hgrm} for the
+ *       whole mix. They load into the HdrHistogram plotter for comparing runs.</li>
+ * </ul>
+ */
+final class ReportWriter {
+
+    private static final DateTimeFormatter DIRECTORY_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final double NANOS_PER_MS = 1e6;
+
+    private final LoadConfig config;
+    private final List<EndpointStats> stats;
+
+    ReportWriter(LoadConfig config, List<EndpointStats> stats) {
+        this.config = config;
+        this.stats = stats;
+    }
+
+    Path write() throws IOException {
+        Path directory = config.output().resolve(LocalDateTime.now().format(DIRECTORY_NAME));
+        Files.createDirectories(directory);
+
+        Histogram allResponse = new Histogram(3);
+        Histogram allService = new Histogram(3);
+        StringWriter text = new StringWriter();
+        PrintWriter summary = new PrintWriter(text);
+        StringBuilder csv = new StringBuilder(
+            "endpoint,requests,rate,success,4xx,5xx,timeouts,failures,dropped,"
+                + "p50_ms,p90_ms,p99_ms,p999_ms,max_ms,service_p50_ms,service_p99_ms\n");
+
+        summary.printf(Locale.ROOT, "Rate %.1f req/s, duration %ds after %ds warm-up, timeout %dms, mix %s%n",
+            config.rate(), config.duration().toSeconds(), config.warmup().toSeconds(),
+            config.timeout().toMillis(), config.mix());
+        summary.println("Response time is measured from the scheduled start (coordinated-omission corrected);");
+        summary.println("service time from the actual send. All latencies in ms.");
+        summary.println();
+        summary.printf(Locale.ROOT, "%-24s %8s %8s %7s %6s %6s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "rate/s", "errors", "4xx", "5xx", "timeouts", "failures", "dropped",
+            "p50", "p90", "p99", "p99.9", "max", "svc p99");
+
+        long errors = 0, clientErrors = 0, serverErrors = 0, timeouts = 0, failures = 0, dropped = 0;
+        for (EndpointStats endpoint : stats) {
+            allResponse.add(endpoint.totalResponseTime());
+            allService.add(endpoint.totalServiceTime());
+            errors += endpoint.completed() - endpoint.success.sum();
+            clientErrors += endpoint.clientErrors.sum();
+            serverErrors += endpoint.serverErrors.sum();
+            timeouts += endpoint.timeouts.sum();
+            failures += endpoint.failures.sum();
+            dropped += endpoint.dropped.sum();
+            row(summary, csv, endpoint.name, endpoint.completed(), endpoint.completed() - endpoint.success.sum(),
+                endpoint.clientErrors.sum(), endpoint.serverErrors.sum(), endpoint.timeouts.sum(),
+                endpoint.failures.sum(), endpoint.dropped.sum(), endpoint.totalResponseTime(),
+                endpoint.totalServiceTime());
+            histogram(directory.resolve(endpoint.name + ".hgrm"), endpoint.totalResponseTime());
+            histogram(directory.resolve(endpoint.name + ".service.hgrm"), endpoint.totalServiceTime());
+        }
+        row(summary, csv, "all", allResponse.getTotalCount(), errors, clientErrors, serverErrors, timeouts,
+            failures, dropped, allResponse, allService);
+        histogram(directory.resolve("all.hgrm"), allResponse);
+        histogram(directory.resolve("all.service.hgrm"), allService);
+
+        summary.flush();
+        Files.writeString(directory.resolve("summary.txt"), text.toString());
+        Files.writeString(directory.resolve("summary.csv"), csv);
+        System.out.println();
+        System.out.print(text);
+        return directory;
+    }
+
+    private void row(PrintWriter summary, StringBuilder csv, String name, long requests, long errors,
+                     long clientErrors, long serverErrors, long timeouts, long failures, long dropped,
+                     Histogram response, Histogram service) {
+        double rate = requests * 1e9 / config.duration().toNanos();
+        summary.printf(Locale.ROOT, "%-24s %8d %8.1f %7d %6d %6d %8d %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+            name, requests, rate, errors, clientErrors, serverErrors, timeouts, failures, dropped,
+            ms(response, 50), ms(response, 90), ms(response, 99), ms(response, 99.9),
+            response.getMaxValue() / NANOS_PER_MS, ms(service, 99));
+        csv.append(String.format(Locale.ROOT, "%s,%d,%.2f,%d,%d,%d,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+            name, requests, rate, requests - errors, clientErrors, serverErrors, timeouts, failures, dropped,
+            ms(response, 50), ms(response, 90), ms(response, 99), ms(response, 99.9),
+            response.getMaxValue() / NANOS_PER_MS, ms(service, 50), ms(service, 99)));
+    }
+
+    private static double ms(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MS;
+    }
+
+    private static void histogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            histogram.outputPercentileDistribution(out, 5, NANOS_PER_MS);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.otel.loadgen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Weighted set of GET requests. Each entry of the mix file reads
+ * {@code name = weight service path}, where {@code service} is a key of the configured targets
+ * and {@code {min-max}} in the path is replaced by a random number in that range on every request.
+ */
+public final class RequestMix {
+
+    /** One kind of request; the report has a histogram per entry. */
+    public record Entry(String name, int weight, URI base, String path) {
+
+        URI sample(ThreadLocalRandom random) {
+            Matcher matcher = RANGE.matcher(path);
+            StringBuilder resolved = new StringBuilder();
+            while (matcher.find()) {
+                long min = Long.parseLong(matcher.group(1));
+                long max = Long.parseLong(matcher.group(2));
+                matcher.appendReplacement(resolved, Long.toString(random.nextLong(min, max + 1)));
+            }
+            matcher.appendTail(resolved);
+            return base.resolve(resolved.toString());
+        }
+    }
+
+    private static final Pattern RANGE = Pattern.compile("\\{(\\d+)-(\\d+)}");
+
+    private final List<Entry> entries;
+    // Cumulative weights, for a binary search per request
+    private final int[] cumulative;
+
+    private RequestMix(List<Entry> entries) {
+        this.entries = List.copyOf(entries);
+        this.cumulative = new int[entries.size()];
+        int total = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            total += entries.get(i).weight();
+            cumulative[i] = total;
+        }
+    }
+
+    /** Loads a bundled mix by name ({@code default}) or a mix file by path. */
+    public static RequestMix load(String mix, Map<String, URI> targets) throws IOException {
+        Properties properties = new OrderedProperties();
+        Path file = Path.of(mix);
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        } else {
+            try (InputStream in = RequestMix.class.getResourceAsStream("/mixes/" + mix + ".properties")) {
+                if (in == null) {
+                    throw new IllegalArgumentException("No mix file or bundled mix named " + mix);
+                }
+                properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (String name : ((OrderedProperties) properties).names()) {
+            String[] parts = properties.getProperty(name).trim().split("\\s+", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Mix entry " + name + " must be: weight service path");
+            }
+            URI base = targets.get(parts[1]);
+            if (base == null) {
+                throw new IllegalArgumentException("Mix entry " + name + " names unknown service " + parts[1]);
+            }
+            int weight = Integer.parseInt(parts[0]);
+            if (weight > 0) {
+                entries.add(new Entry(name, weight, base, parts[2]));
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Mix " + mix + " has no entries with a positive weight");
+        }
+        return new RequestMix(entries);
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /** Index into {@link #entries()} of a randomly chosen entry, in proportion to the weights. */
+    public int next(ThreadLocalRandom random) {
+        int pick = random.nextInt(cumulative[cumulative.length - 1]);
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] > pick) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /** Keeps the file order of the entries, so the report lists them as written. */
+    private static final class OrderedProperties extends Properties {
+
+        private final List<String> names = new ArrayList<>();
+
+        @Override
+        public synchronized Object put(Object key, Object value) {
+            if (!names.contains(key.toString())) {
+                names.add(key.toString());
+            }
+            return super.put(key, value);
+        }
+
+        List<String> names() {
+            return names;
+        }
+    }
+}